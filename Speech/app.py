@@ -1,4 +1,7 @@
-from flask import Flask, request, send_file, abort, jsonify
+import os
+import struct
+import torch
+from flask import Flask, Response, request, send_file, abort, jsonify
 from TTS.api import TTS
 import whisper
 import soundfile as sf
@@ -7,6 +10,10 @@ import io
 app = Flask(__name__)
 tts = TTS(model_name="tts_models/en/vctk/vits", progress_bar=False, gpu=False)
 whisper_model = whisper.load_model("small") # better accuracy, but can be changed to "tiny", "base", "small", "medium", "large"
+@app.route('/health', methods=['GET'])
+def health():
+    return jsonify({'status': 'OK'})
+
 @app.route('/tts', methods=['POST'])
 def tts_api():
     if request.remote_addr not in ['127.0.0.1', '::1']:
@@ -14,13 +21,59 @@ def tts_api():
     text = request.json.get('text', '')
     if not text:
         abort(400, 'No text provided')
-    speaker = tts.speakers[4]  # Use the first available speaker
+    speaker = request.json.get('speaker') or tts.speakers[4]  # Default to the fifth available speaker
+    if speaker not in tts.speakers:
+        abort(400, 'Unknown speaker')
     wav = tts.tts(text=text, speaker=speaker)
     buf = io.BytesIO()
     sf.write(buf, wav, tts.synthesizer.output_sample_rate, format='WAV')
     buf.seek(0)
     return send_file(buf, mimetype='audio/wav')
 
+@app.route('/tts/batch', methods=['POST'])
+def tts_batch_api():
+    if request.remote_addr not in ['127.0.0.1', '::1']:
+        abort(403)
+    texts = request.json.get('texts', [])
+    if not texts or any(not text for text in texts):
+        abort(400, 'No texts provided')
+    speaker = request.json.get('speaker') or tts.speakers[4]
+    if speaker not in tts.speakers:
+        abort(400, 'Unknown speaker')
+    try:
+        wavs = synthesize_batch(texts, speaker)
+    except Exception:
+        # A model without batched inference still answers, one forward pass per text
+        app.logger.exception('Batched synthesis failed, synthesizing texts one by one')
+        wavs = [tts.tts(text=text, speaker=speaker) for text in texts]
+    # Each WAV clip in request order, prefixed by its length as a 4-byte big-endian integer
+    body = io.BytesIO()
+    for wav in wavs:
+        buf = io.BytesIO()
+        sf.write(buf, wav, tts.synthesizer.output_sample_rate, format='WAV')
+        body.write(struct.pack('>I', buf.tell()))
+        body.write(buf.getvalue())
+    return Response(body.getvalue(), mimetype='application/octet-stream')
+
+# One VITS forward pass for the whole batch: token ids are padded to the longest text and every clip is cut
+# back to its own length from the predicted durations
+def synthesize_batch(texts, speaker):
+    model = tts.synthesizer.tts_model
+    ids = [model.tokenizer.text_to_ids(text) for text in texts]
+    lengths = torch.tensor([len(seq) for seq in ids], dtype=torch.long)
+    tokens = torch.zeros(len(ids), int(lengths.max()), dtype=torch.long)
+    for row, seq in enumerate(ids):
+        tokens[row, :len(seq)] = torch.tensor(seq, dtype=torch.long)
+    speaker_ids = torch.full((len(ids),), model.speaker_manager.name_to_id[speaker], dtype=torch.long)
+    device = next(model.parameters()).device
+    with torch.no_grad():
+        outputs = model.inference(tokens.to(device), aux_input={'x_lengths': lengths.to(device),
+                                                                'speaker_ids': speaker_ids.to(device)})
+    waveforms = outputs['model_outputs'].squeeze(1).cpu().numpy()
+    frames = outputs['y_mask'].sum(dim=(1, 2)).long().cpu().tolist()
+    hop_length = model.config.audio.hop_length
+    return [waveforms[row, :frames[row] * hop_length] for row in range(len(ids))]
+
 @app.route('/stt', methods=['POST'])
 def stt_api():
     if request.remote_addr not in ['127.0.0.1', '::1']:
@@ -37,4 +90,4 @@ def stt_api():
     return jsonify({'text': result['text']})
 
 if __name__ == '__main__':
-    app.run(host='127.0.0.1', port=5000)
\ No newline at end of file
+    app.run(host='127.0.0.1', port=int(os.environ.get('SPEECH_PORT', 5000)))
\ No newline at end of file
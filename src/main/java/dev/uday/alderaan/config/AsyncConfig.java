@@ -0,0 +1,66 @@
+package dev.uday.alderaan.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Value("${chat.history.summary.queue-capacity:100}")
+    private int summaryQueueCapacity;
+
+    // Same switch that moves Tomcat and the Spring task executors onto virtual threads
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${ai.turn.max-platform-threads:64}")
+    private int maxPlatformThreads;
+
+    // One summarization at a time so it never crowds interactive turns out of Ollama. A full queue rejects
+    // the task, and the summarizer releases the session so its next window slide submits it again.
+    @Bean
+    public ThreadPoolTaskExecutor historySummaryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(summaryQueueCapacity);
+        executor.setThreadNamePrefix("history-summary-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // Runs AI turns off the servlet thread along with their forked steps and blocking backend calls.
+    // Virtual threads are unbounded on purpose: concurrency is limited by the backend bulkheads, not by
+    // this pool. Platform threads are capped, and once they are all busy a task runs on the thread that
+    // submitted it: a turn then runs synchronously on its servlet thread, and a forked step inside the
+    // turn that forked it, so a full pool slows requests down instead of piling up threads or deadlocking.
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService turnExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-turn-", 0).factory());
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ai-turn-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(0, maxPlatformThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Blocking steps inside reactive pipelines (sentence TTS, persistence at the end of a stream)
+    @Bean(destroyMethod = "")
+    public Scheduler blockingScheduler(ExecutorService turnExecutor) {
+        return virtualThreads ? Schedulers.fromExecutorService(turnExecutor, "ai-turn") : Schedulers.boundedElastic();
+    }
+}
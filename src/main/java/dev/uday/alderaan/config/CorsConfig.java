@@ -7,24 +7,28 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class CorsConfig {
 
+    // Allow React development server
+    public static final List<String> ALLOWED_ORIGINS = Arrays.asList(
+            "http://localhost:3000",
+            "http://localhost:5173", // Vite default port
+            "http://127.0.0.1:3000",
+            "http://127.0.0.1:5173"
+    );
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
 
-        // Allow React development server
-        configuration.setAllowedOrigins(Arrays.asList(
-                "http://localhost:3000",
-                "http://localhost:5173", // Vite default port
-                "http://127.0.0.1:3000",
-                "http://127.0.0.1:5173"
-        ));
+        configuration.setAllowedOrigins(ALLOWED_ORIGINS);
 
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("X-AI-Response-Text", "X-AI-Response-Text-Truncated"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
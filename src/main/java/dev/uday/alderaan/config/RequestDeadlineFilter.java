@@ -0,0 +1,48 @@
+package dev.uday.alderaan.config;
+
+import dev.uday.alderaan.util.Deadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    public static final String DEADLINE_HEADER = "X-Request-Timeout-Ms";
+
+    @Value("${backend.request.timeout-ms:120000}")
+    private long defaultTimeoutMs;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // Clients may tighten the budget, never extend it past the server default
+        long timeoutMs = defaultTimeoutMs;
+        String requested = request.getHeader(DEADLINE_HEADER);
+        if (requested != null) {
+            try {
+                timeoutMs = Math.min(defaultTimeoutMs, Math.max(0, Long.parseLong(requested.trim())));
+            } catch (NumberFormatException ignored) {
+                // Fall back to the default budget
+            }
+        }
+
+        Deadline.set(Instant.now().plusMillis(timeoutMs));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Deadline.clear();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package dev.uday.alderaan.config;
 
 import dev.uday.alderaan.security.JwtAuthenticationFilter;
+import dev.uday.alderaan.security.PrincipalCache;
 import dev.uday.alderaan.service.UserService;
 import dev.uday.alderaan.util.JwtUtil;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +27,7 @@ public class SecurityConfig {
 
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
     private final CorsConfigurationSource corsConfigurationSource;
 
     @Bean
@@ -34,7 +37,7 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtUtil, userService);
+        return new JwtAuthenticationFilter(jwtUtil, userService, principalCache);
     }
 
     @Bean
@@ -43,9 +46,11 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()  // streamed responses were authorized on the initial dispatch
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/test/**").permitAll()  // Add this line
                         .requestMatchers("/api/speech/**").permitAll()
+                        .requestMatchers("/ws/**").permitAll()  // authenticated by JwtHandshakeInterceptor
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
@@ -0,0 +1,30 @@
+package dev.uday.alderaan.config;
+
+import dev.uday.alderaan.util.TurnContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Tags work done for a request with its route pattern (not the raw URI, which would explode metric cardinality)
+@Component
+public class TurnContextInterceptor implements AsyncHandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        TurnContext.setEndpoint(pattern != null ? pattern.toString() : TurnContext.UNKNOWN_ENDPOINT);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        TurnContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        TurnContext.clear();
+    }
+}
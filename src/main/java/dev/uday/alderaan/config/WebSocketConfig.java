@@ -0,0 +1,44 @@
+package dev.uday.alderaan.config;
+
+import dev.uday.alderaan.controller.VoiceWebSocketHandler;
+import dev.uday.alderaan.security.JwtHandshakeInterceptor;
+import dev.uday.alderaan.util.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final VoiceWebSocketHandler voiceWebSocketHandler;
+    private final JwtUtil jwtUtil;
+
+    @Value("${websocket.voice.max-frame-size:1048576}")
+    private int maxFrameSize;
+
+    @Value("${websocket.voice.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(voiceWebSocketHandler, VoiceWebSocketHandler.ENDPOINT)
+                .addInterceptors(new JwtHandshakeInterceptor(jwtUtil))
+                .setAllowedOrigins(CorsConfig.ALLOWED_ORIGINS.toArray(String[]::new));
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxBinaryMessageBufferSize(maxFrameSize);
+        container.setMaxTextMessageBufferSize(64 * 1024);
+        container.setMaxSessionIdleTimeout(idleTimeoutMs);
+        return container;
+    }
+}
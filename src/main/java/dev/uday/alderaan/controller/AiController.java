@@ -1,24 +1,52 @@
 package dev.uday.alderaan.controller;
 
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.TurnEvent;
+import dev.uday.alderaan.dto.TurnResult;
+import dev.uday.alderaan.exception.BackendUnavailableException;
 import dev.uday.alderaan.model.ChatMessage;
 import dev.uday.alderaan.model.ChatSession;
 import dev.uday.alderaan.model.User;
 import dev.uday.alderaan.service.AiService;
+import dev.uday.alderaan.service.AudioBlobStore;
+import dev.uday.alderaan.service.AudioTranscoder;
 import dev.uday.alderaan.service.ChatService;
+import dev.uday.alderaan.service.ChatTurnService;
 import dev.uday.alderaan.service.SpeechRecognitionService;
 import dev.uday.alderaan.service.UserService;
+import dev.uday.alderaan.util.AudioEncoding;
+import dev.uday.alderaan.util.Deadline;
+import dev.uday.alderaan.util.StructuredScope;
+import dev.uday.alderaan.util.TurnContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
-
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -26,142 +54,398 @@ import java.util.Map;
 @Slf4j
 public class AiController {
 
+    private static final String RESPONSE_TEXT_HEADER = "X-AI-Response-Text";
+    private static final String RESPONSE_TEXT_TRUNCATED_HEADER = "X-AI-Response-Text-Truncated";
+    // Tomcat rejects responses whose headers exceed 8 KB, so long replies are cut to leave room for the rest
+    private static final int MAX_RESPONSE_TEXT_HEADER_LENGTH = 4096;
+
     private final AiService aiService;
+    private final AudioBlobStore audioBlobStore;
+    private final AudioTranscoder audioTranscoder;
+    private final ChatTurnService chatTurnService;
     private final SpeechRecognitionService speechRecognitionService;
     private final ChatService chatService;
     private final UserService userService;
+    private final ExecutorService turnExecutor;
+    private final Scheduler blockingScheduler;
 
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, Object>> chat(
+    public DeferredResult<ResponseEntity<Map<String, Object>>> chat(
             @RequestParam("prompt") String prompt,
             @RequestParam("sessionId") Long sessionId,
             Authentication authentication) {
 
         log.debug("Received chat request: {} for session: {}", prompt, sessionId);
 
-        try {
-            User user = userService.findByUsername(authentication.getName());
-            ChatSession session = chatService.getChatSessionById(sessionId)
-                    .orElseThrow(() -> new RuntimeException("Session not found"));
-
-            // Save user message
-            ChatMessage userMessage = chatService.saveMessage(session, ChatMessage.MessageType.USER_TEXT, prompt);
-
-            // Get AI response with conversation history
-            String aiResponse = aiService.getTextResponseWithHistory(prompt, session);
-
-            // Save AI response
-            ChatMessage aiMessage = chatService.saveMessage(session, ChatMessage.MessageType.AI_TEXT, aiResponse);
-
-            Map<String, Object> result = new HashMap<>();
-            result.put("userMessage", Map.of(
-                    "id", userMessage.getId(),
-                    "content", userMessage.getContent(),
-                    "type", userMessage.getType(),
-                    "createdAt", userMessage.getCreatedAt()
-            ));
-            result.put("aiMessage", Map.of(
-                    "id", aiMessage.getId(),
-                    "content", aiMessage.getContent(),
-                    "type", aiMessage.getType(),
-                    "createdAt", aiMessage.getCreatedAt()
-            ));
-
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            log.error("Error processing chat request", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
-                    Map.of("error", "Failed to process chat request")
-            );
-        }
+        return deferTurn(() -> {
+            try (StructuredScope scope = new StructuredScope(turnExecutor)) {
+                // Resolving the user and the session and loading history are independent of each other; the
+                // prompt is only saved once the session is known to be the caller's
+                Future<User> user = scope.fork(() -> userService.findByUsername(authentication.getName()));
+                Future<Optional<ChatSession>> session = scope.fork(() -> chatService.getChatSessionById(sessionId));
+                Future<ChatHistory> history = scope.fork(() -> chatService.getRecentHistory(sessionId));
+                scope.join();
+
+                ChatSession ownedSession = ownedBy(session.resultNow(), user.resultNow());
+                ChatMessage userMessage = chatService.saveMessage(ownedSession, ChatMessage.MessageType.USER_TEXT, prompt);
+
+                // Get AI response with conversation history
+                String aiResponse = aiService.getTextResponseWithHistory(prompt,
+                        withoutMessage(history.resultNow(), userMessage));
+
+                // Save AI response
+                ChatMessage aiMessage = chatService.saveMessage(ownedSession, ChatMessage.MessageType.AI_TEXT, aiResponse);
+
+                Map<String, Object> result = new HashMap<>();
+                result.put("userMessage", toMessageMap(userMessage));
+                result.put("aiMessage", toMessageMap(aiMessage));
+
+                return ResponseEntity.ok(result);
+            } catch (BackendUnavailableException e) {
+                // Overload and open circuits are answered with 429/503 and Retry-After by the exception handler
+                throw e;
+            } catch (InterruptedException | CancellationException e) {
+                log.debug("Chat request cancelled for session: {}", sessionId);
+                throw e;
+            } catch (Exception e) {
+                log.error("Error processing chat request", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                        Map.of("error", "Failed to process chat request")
+                );
+            }
+        });
     }
 
-    @PostMapping("/chat/speech")
-    public ResponseEntity<byte[]> chatWithSpeech(
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> chatStream(
             @RequestParam("prompt") String prompt,
             @RequestParam("sessionId") Long sessionId,
             Authentication authentication) {
 
-        log.debug("Received chat with speech request: {} for session: {}", prompt, sessionId);
+        log.debug("Received streaming chat request: {} for session: {}", prompt, sessionId);
 
-        try {
-            User user = userService.findByUsername(authentication.getName());
-            ChatSession session = chatService.getChatSessionById(sessionId)
-                    .orElseThrow(() -> new RuntimeException("Session not found"));
+        ChatSession session = ownedSession(sessionId, authentication);
+
+        // Save user message while its history loads
+        ChatMessage userMessage;
+        ChatHistory history;
+        try (StructuredScope scope = new StructuredScope(turnExecutor)) {
+            Future<ChatMessage> savedMessage = scope.fork(() ->
+                    chatService.saveMessage(session, ChatMessage.MessageType.USER_TEXT, prompt));
+            Future<ChatHistory> recentHistory = scope.fork(() -> chatService.getRecentHistory(sessionId));
+            scope.join();
+            userMessage = savedMessage.resultNow();
+            history = withoutMessage(recentHistory.resultNow(), userMessage);
+        } catch (Exception e) {
+            log.error("Error preparing streaming chat request", e);
+            return Flux.just(errorEvent(e, "Failed to process chat request"));
+        }
 
-            // Save user message
-            chatService.saveMessage(session, ChatMessage.MessageType.USER_TEXT, prompt);
+        // Stream tokens as they arrive and keep the full text for persistence
+        StringBuffer aiResponse = new StringBuffer();
+        Flux<ServerSentEvent<Map<String, Object>>> tokens = aiService.streamTextResponseWithHistory(prompt, history)
+                .doOnNext(aiResponse::append)
+                .map(token -> ServerSentEvent.<Map<String, Object>>builder(Map.of("content", token))
+                        .event("token")
+                        .build());
+
+        // Save AI response once the stream has completed, or what there is of it if the client leaves first
+        AtomicBoolean saved = new AtomicBoolean();
+        Mono<ServerSentEvent<Map<String, Object>>> done = Mono.fromCallable(() -> {
+                    saved.set(true);
+                    ChatMessage aiMessage = chatService.saveMessage(session, ChatMessage.MessageType.AI_TEXT, aiResponse.toString());
+
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("userMessage", toMessageMap(userMessage));
+                    result.put("aiMessage", toMessageMap(aiMessage));
+                    return ServerSentEvent.builder(result).event("done").build();
+                })
+                .subscribeOn(blockingScheduler);
+
+        return tokens.concatWith(done)
+                .doFinally(signal -> {
+                    if (aiResponse.length() > 0 && saved.compareAndSet(false, true)) {
+                        blockingScheduler.schedule(() ->
+                                chatService.saveMessage(session, ChatMessage.MessageType.AI_TEXT, aiResponse.toString()));
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("Error processing streaming chat request", e);
+                    return Mono.just(errorEvent(e, "Failed to process chat request"));
+                })
+                .contextWrite(TurnContext.capture());
+    }
 
-            // Get AI response with speech and conversation history
-            byte[] audioData = aiService.getSpeechResponseWithHistory(prompt, session);
-            String aiResponse = aiService.getTextResponseWithHistory(prompt, session);
+    // A one-off question outside any session: no history is loaded and nothing is saved, so the answer
+    // depends on the prompt alone and can come from the semantic cache when that is enabled
+    @PostMapping("/ask")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> ask(@RequestParam("prompt") String prompt) {
+        log.debug("Received stateless prompt: {}", prompt);
 
-            // Save AI response
-            chatService.saveMessage(session, ChatMessage.MessageType.AI_AUDIO, aiResponse);
+        return deferTurn(() -> ResponseEntity.ok(Map.of("response", aiService.getTextResponse(prompt))));
+    }
 
-            if (audioData.length == 0) {
+    @PostMapping("/chat/speech")
+    public DeferredResult<ResponseEntity<byte[]>> chatWithSpeech(
+            @RequestParam("prompt") String prompt,
+            @RequestParam("sessionId") Long sessionId,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat,
+            Authentication authentication) {
+
+        log.debug("Received chat with speech request: {} for session: {}", prompt, sessionId);
+
+        return deferTurn(() -> {
+            try (StructuredScope scope = new StructuredScope(turnExecutor)) {
+                Future<User> user = scope.fork(() -> userService.findByUsername(authentication.getName()));
+                Future<Optional<ChatSession>> session = scope.fork(() -> chatService.getChatSessionById(sessionId));
+                scope.join();
+
+                // Run the turn once: the spoken audio and the saved text come from the same generation
+                TurnResult turn = chatTurnService.speechTurn(ownedBy(session.resultNow(), user.resultNow()),
+                        ChatMessage.MessageType.USER_TEXT, prompt);
+                byte[] audioData = audioTranscoder.encode(turn.getAudio(), audioTranscoder.encoding(audioFormat));
+
+                if (audioData.length == 0) {
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                }
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.parseMediaType("audio/wav"));
+                headers.setContentLength(audioData.length);
+                headers.set("Content-Disposition", "attachment; filename=\"ai_response.wav\"");
+                setResponseText(headers, turn.getText());
+
+                return new ResponseEntity<>(audioData, headers, HttpStatus.OK);
+            } catch (BackendUnavailableException | InterruptedException | CancellationException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Error processing speech chat request", e);
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
             }
+        });
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("audio/wav"));
-            headers.setContentLength(audioData.length);
-            headers.set("Content-Disposition", "attachment; filename=\"ai_response.wav\"");
+    @PostMapping(value = "/chat/speech/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> chatWithSpeechStream(
+            @RequestParam("prompt") String prompt,
+            @RequestParam("sessionId") Long sessionId,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat,
+            Authentication authentication) {
 
-            return new ResponseEntity<>(audioData, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("Error processing speech chat request", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+        log.debug("Received streaming speech chat request: {} for session: {}", prompt, sessionId);
+
+        ChatSession session = ownedSession(sessionId, authentication);
+
+        AudioEncoding encoding = audioTranscoder.encoding(audioFormat);
+        return chatTurnService.streamSpeechTurn(session, ChatMessage.MessageType.USER_TEXT, prompt)
+                .map(event -> audioTranscoder.encode(event, encoding))
+                .map(this::toServerSentEvent)
+                .onErrorResume(e -> {
+                    log.error("Error processing streaming speech chat request", e);
+                    return Mono.just(errorEvent(e, "Failed to process speech chat request"));
+                })
+                .contextWrite(TurnContext.capture());
     }
 
     @PostMapping("/chat/voice")
-    public ResponseEntity<byte[]> voiceToVoice(
+    public DeferredResult<ResponseEntity<byte[]>> voiceToVoice(
             @RequestParam("audio") MultipartFile audioFile,
             @RequestParam("sessionId") Long sessionId,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat,
             Authentication authentication) {
 
         log.debug("Received voice-to-voice request for session: {}, file: {}, size: {}",
                 sessionId, audioFile.getOriginalFilename(), audioFile.getSize());
 
+        return deferTurn(() -> {
+            try (StructuredScope scope = new StructuredScope(turnExecutor)) {
+                // Recognize speech from audio while the session is resolved
+                Future<String> recognized = scope.fork(() -> speechRecognitionService.recognizeSpeech(audioFile));
+                Future<String> userAudioKey = scope.fork(() -> audioBlobStore.tryStore(audioFile));
+                Future<User> user = scope.fork(() -> userService.findByUsername(authentication.getName()));
+                Future<Optional<ChatSession>> session = scope.fork(() -> chatService.getChatSessionById(sessionId));
+                scope.join();
+
+                ChatSession ownedSession = ownedBy(session.resultNow(), user.resultNow());
+                String recognizedText = recognized.resultNow();
+                log.debug("Recognized text: {}", recognizedText);
+
+                if (recognizedText == null || recognizedText.trim().isEmpty()) {
+                    log.warn("No text recognized from audio");
+                    return ResponseEntity.badRequest().body(null);
+                }
+
+                // Get AI response with conversation history and synthesize speech in a single turn
+                TurnResult turn = chatTurnService.speechTurn(ownedSession, ChatMessage.MessageType.USER_AUDIO,
+                        recognizedText, userAudioKey.resultNow());
+                byte[] audioResponse = audioTranscoder.encode(turn.getAudio(), audioTranscoder.encoding(audioFormat));
+
+                if (audioResponse.length == 0) {
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                }
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.parseMediaType("audio/wav"));
+                headers.setContentLength(audioResponse.length);
+                headers.set("Content-Disposition", "attachment; filename=\"voice_response.wav\"");
+                setResponseText(headers, turn.getText());
+
+                return new ResponseEntity<>(audioResponse, headers, HttpStatus.OK);
+
+            } catch (BackendUnavailableException | InterruptedException | CancellationException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Error processing voice-to-voice request", e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            }
+        });
+    }
+
+    @PostMapping(value = "/chat/voice/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> voiceToVoiceStream(
+            @RequestParam("audio") MultipartFile audioFile,
+            @RequestParam("sessionId") Long sessionId,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat,
+            Authentication authentication) {
+
+        log.debug("Received streaming voice-to-voice request for session: {}, file: {}, size: {}",
+                sessionId, audioFile.getOriginalFilename(), audioFile.getSize());
+
+        ChatSession session = ownedSession(sessionId, authentication);
+
+        // Recognize speech before the upload is released at the end of the request
+        String recognizedText;
         try {
-            User user = userService.findByUsername(authentication.getName());
-            ChatSession session = chatService.getChatSessionById(sessionId)
-                    .orElseThrow(() -> new RuntimeException("Session not found"));
+            recognizedText = speechRecognitionService.recognizeSpeech(audioFile);
+        } catch (BackendUnavailableException e) {
+            log.warn("Speech recognition unavailable: {}", e.getMessage());
+            return Flux.just(errorEvent(e, "Failed to process voice-to-voice request"));
+        }
+        log.debug("Recognized text: {}", recognizedText);
 
-            // Recognize speech from audio
-            String recognizedText = speechRecognitionService.recognizeSpeech(audioFile);
-            log.debug("Recognized text: {}", recognizedText);
+        if (recognizedText == null || recognizedText.trim().isEmpty()) {
+            log.warn("No text recognized from audio");
+            return Flux.just(errorEvent("No speech recognized"));
+        }
+        String userAudioKey = audioBlobStore.tryStore(audioFile);
+        AudioEncoding encoding = audioTranscoder.encoding(audioFormat);
+
+        return Flux.just(TurnEvent.transcript(recognizedText))
+                .concatWith(chatTurnService.streamSpeechTurn(session, ChatMessage.MessageType.USER_AUDIO, recognizedText,
+                        userAudioKey))
+                .map(event -> audioTranscoder.encode(event, encoding))
+                .map(this::toServerSentEvent)
+                .onErrorResume(e -> {
+                    log.error("Error processing streaming voice-to-voice request", e);
+                    return Mono.just(errorEvent(e, "Failed to process voice-to-voice request"));
+                })
+                .contextWrite(TurnContext.capture());
+    }
 
-            if (recognizedText == null || recognizedText.trim().isEmpty()) {
-                log.warn("No text recognized from audio");
-                return ResponseEntity.badRequest().body(null);
+    // Runs a blocking turn on the turn executor and frees the servlet thread; when the executor is saturated the
+    // turn runs here instead. A dropped connection or an expired request deadline cancels the turn together
+    // with every step it has forked.
+    private <T> DeferredResult<T> deferTurn(Callable<T> turn) {
+        Instant deadline = Deadline.current();
+        Long timeoutMs = deadline == null ? null : Math.max(1, Duration.between(Instant.now(), deadline).toMillis());
+        DeferredResult<T> result = new DeferredResult<>(timeoutMs);
+
+        Callable<T> withDeadline = TurnContext.propagate(turn);
+        Future<?> task = turnExecutor.submit(() -> {
+            try {
+                result.setResult(withDeadline.call());
+            } catch (InterruptedException | CancellationException e) {
+                log.debug("Turn cancelled");
+            } catch (Exception e) {
+                result.setErrorResult(e);
             }
+        });
+
+        result.onTimeout(() -> task.cancel(true));
+        result.onError(error -> task.cancel(true));
+        return result;
+    }
+
+    private ChatSession ownedSession(Long sessionId, Authentication authentication) {
+        return ownedBy(chatService.getChatSessionById(sessionId), userService.findByUsername(authentication.getName()));
+    }
 
-            // Save user audio message
-            chatService.saveMessage(session, ChatMessage.MessageType.USER_AUDIO, recognizedText);
+    // Other users' sessions are reported as missing, so session ids cannot be probed. The session's user may be
+    // a lazy proxy, but its id is known without loading it.
+    private static ChatSession ownedBy(Optional<ChatSession> session, User user) {
+        return session.filter(candidate -> user != null && candidate.getUser().getId().equals(user.getId()))
+                .orElseThrow(() -> new RuntimeException("Session not found"));
+    }
 
-            // Get AI response with conversation history and synthesize speech
-            byte[] audioResponse = aiService.getSpeechResponseWithHistory(recognizedText, session);
-            String aiResponse = aiService.getTextResponseWithHistory(recognizedText, session);
+    // History loaded alongside the save may or may not already contain the new prompt
+    private ChatHistory withoutMessage(ChatHistory history, ChatMessage message) {
+        return history.withoutMessage(message.getId());
+    }
 
-            // Save AI audio response
-            chatService.saveMessage(session, ChatMessage.MessageType.AI_AUDIO, aiResponse);
+    private ServerSentEvent<Map<String, Object>> toServerSentEvent(TurnEvent event) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("content", event.getText());
+        if (event.getType() == TurnEvent.Type.AUDIO) {
+            data.put("index", event.getIndex());
+            data.put("audio", Base64.getEncoder().encodeToString(event.getAudio()));
+        }
+        return ServerSentEvent.<Map<String, Object>>builder(data)
+                .event(event.getType().name().toLowerCase())
+                .build();
+    }
 
-            if (audioResponse.length == 0) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-            }
+    private ServerSentEvent<Map<String, Object>> errorEvent(String message) {
+        return ServerSentEvent.<Map<String, Object>>builder(Map.of("error", message))
+                .event("error")
+                .build();
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("audio/wav"));
-            headers.setContentLength(audioResponse.length);
-            headers.set("Content-Disposition", "attachment; filename=\"voice_response.wav\"");
+    // Shed requests tell the client when to retry instead of a generic failure
+    private ServerSentEvent<Map<String, Object>> errorEvent(Throwable error, String message) {
+        if (error instanceof BackendUnavailableException unavailable) {
+            return ServerSentEvent.<Map<String, Object>>builder(Map.of(
+                            "error", unavailable.getMessage(),
+                            "backend", unavailable.getBackend(),
+                            "retryAfter", Math.max(1, unavailable.getRetryAfter().toSeconds())))
+                    .event("error")
+                    .build();
+        }
+        return errorEvent(message);
+    }
 
-            return new ResponseEntity<>(audioResponse, headers, HttpStatus.OK);
+    private Map<String, Object> toMessageMap(ChatMessage message) {
+        return Map.of(
+                "id", message.getId(),
+                "content", message.getContent(),
+                "type", message.getType(),
+                "createdAt", message.getCreatedAt()
+        );
+    }
 
-        } catch (Exception e) {
-            log.error("Error processing voice-to-voice request", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+    // The header is a convenience for showing the reply next to the audio; a cut one is flagged, and the full
+    // text is in the session's saved messages
+    private void setResponseText(HttpHeaders headers, String text) {
+        String encoded = encodeHeaderValue(text);
+        if (encoded.length() > MAX_RESPONSE_TEXT_HEADER_LENGTH) {
+            // Cut on a code point so the percent-encoding stays valid UTF-8
+            int end = 0;
+            int length = 0;
+            while (end < text.length()) {
+                int next = text.offsetByCodePoints(end, 1);
+                int size = encodeHeaderValue(text.substring(end, next)).length();
+                if (length + size > MAX_RESPONSE_TEXT_HEADER_LENGTH) {
+                    break;
+                }
+                length += size;
+                end = next;
+            }
+            encoded = encodeHeaderValue(text.substring(0, end));
+            headers.set(RESPONSE_TEXT_TRUNCATED_HEADER, "true");
         }
+        headers.set(RESPONSE_TEXT_HEADER, encoded);
+    }
+
+    private String encodeHeaderValue(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
     }
 }
\ No newline at end of file
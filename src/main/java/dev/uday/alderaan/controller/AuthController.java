@@ -4,10 +4,13 @@ import dev.uday.alderaan.dto.LoginRequest;
 import dev.uday.alderaan.dto.LoginResponse;
 import dev.uday.alderaan.dto.RegisterRequest;
 import dev.uday.alderaan.model.User;
+import dev.uday.alderaan.service.PasswordWorkService;
 import dev.uday.alderaan.service.UserService;
 import dev.uday.alderaan.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,6 +21,8 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -28,53 +33,41 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final PasswordWorkService passwordWorkService;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest loginRequest) {
         try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsername(),
-                            loginRequest.getPassword()
-                    )
-            );
-
-            String token = jwtUtil.generateToken(loginRequest.getUsername());
-            User user = userService.findByUsername(loginRequest.getUsername());
-
-            return ResponseEntity.ok(new LoginResponse(token, user.getUsername()));
-        } catch (AuthenticationException e) {
-            log.error("Authentication failed for user: {}", loginRequest.getUsername());
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Invalid credentials");
-            return ResponseEntity.badRequest().body(error);
+            // BCrypt verification runs on the bounded hashing pool, not on the request thread
+            return passwordWorkService.submit(() -> authenticate(loginRequest));
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejected login for user: {}, password hashing pool is saturated", loginRequest.getUsername());
+            return CompletableFuture.completedFuture(tooManyRequests());
         }
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest registerRequest) {
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody RegisterRequest registerRequest) {
         // Check if username already exists
         if (userService.existsByUsername(registerRequest.getUsername())) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Username already exists");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
 
         // Check if email already exists
         if (userService.existsByEmail(registerRequest.getEmail())) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Email already exists");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
 
-        User user = new User(registerRequest.getUsername(),
-                registerRequest.getPassword(),
-                registerRequest.getEmail());
-
-        User createdUser = userService.createUser(user);
-        String token = jwtUtil.generateToken(createdUser.getUsername());
-
-        return ResponseEntity.ok(new LoginResponse(token, createdUser.getUsername()));
+        try {
+            return passwordWorkService.submit(() -> createUser(registerRequest));
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejected registration for user: {}, password hashing pool is saturated", registerRequest.getUsername());
+            return CompletableFuture.completedFuture(tooManyRequests());
+        }
     }
 
     @PostMapping("/validate")
@@ -89,6 +82,7 @@ public class AuthController {
             response.put("valid", isValid);
 
             if (isValid) {
+                // Served from the verified-token cache populated by validateToken
                 String username = jwtUtil.getUsernameFromToken(token);
                 response.put("username", username);
             }
@@ -98,4 +92,42 @@ public class AuthController {
 
         return ResponseEntity.badRequest().body(Map.of("valid", false));
     }
+
+    private ResponseEntity<?> authenticate(LoginRequest loginRequest) {
+        try {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getUsername(),
+                            loginRequest.getPassword()
+                    )
+            );
+
+            String token = jwtUtil.generateToken(loginRequest.getUsername());
+            User user = userService.findByUsername(loginRequest.getUsername());
+
+            return ResponseEntity.ok(new LoginResponse(token, user.getUsername()));
+        } catch (AuthenticationException e) {
+            log.error("Authentication failed for user: {}", loginRequest.getUsername());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid credentials");
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    private ResponseEntity<?> createUser(RegisterRequest registerRequest) {
+        User user = new User(registerRequest.getUsername(),
+                registerRequest.getPassword(),
+                registerRequest.getEmail());
+
+        User createdUser = userService.createUser(user);
+        String token = jwtUtil.generateToken(createdUser.getUsername());
+
+        return ResponseEntity.ok(new LoginResponse(token, createdUser.getUsername()));
+    }
+
+    private ResponseEntity<?> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Too many authentication requests, please retry shortly"));
+    }
 }
\ No newline at end of file
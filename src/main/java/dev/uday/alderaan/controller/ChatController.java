@@ -3,17 +3,28 @@ package dev.uday.alderaan.controller;
 import dev.uday.alderaan.model.ChatMessage;
 import dev.uday.alderaan.model.ChatSession;
 import dev.uday.alderaan.model.User;
+import dev.uday.alderaan.service.AudioBlobStore;
 import dev.uday.alderaan.service.ChatService;
 import dev.uday.alderaan.service.UserService;
+import dev.uday.alderaan.util.FileResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -22,6 +33,7 @@ import java.util.Map;
 public class ChatController {
 
     private final ChatService chatService;
+    private final AudioBlobStore audioBlobStore;
     private final UserService userService;
 
     @PostMapping("/sessions")
@@ -72,6 +84,72 @@ public class ChatController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Replays stored message audio. Blobs are content-addressed and never change, so the hash is a strong ETag
+    // and clients may cache forever; single byte ranges let players seek without fetching the whole clip.
+    @GetMapping("/messages/{messageId}/audio")
+    public void getMessageAudio(
+            @PathVariable Long messageId,
+            Authentication authentication,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        // Other users' messages are reported as missing, so message ids cannot be probed
+        User user = userService.findByUsername(authentication.getName());
+        Optional<String> key = chatService.getMessage(messageId)
+                .filter(message -> isOwnedBy(message, user))
+                .map(ChatMessage::getAudioFilePath);
+        Optional<Path> blob = key.flatMap(audioBlobStore::find);
+        if (blob.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        String etag = "\"" + audioBlobStore.hash(key.get()) + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long length = Files.size(blob.get());
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // A stale If-Range means the client's partial copy is of something else: send the whole blob
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                // Multipart responses are not worth it for audio; several ranges are answered with the whole blob
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    // HttpRange clamps the end to the blob but not the start
+                    if (start >= length) {
+                        throw new IllegalArgumentException("Range starts past the end of the blob");
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+
+        response.setContentType(audioBlobStore.contentType(key.get()).toString());
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod()) || end < start) {
+            return;
+        }
+        FileResponses.send(blob.get(), start, end + 1, request, response);
+    }
+
     @DeleteMapping("/sessions/{sessionId}")
     public ResponseEntity<Void> deleteChatSession(
             @PathVariable Long sessionId,
@@ -80,4 +158,11 @@ public class ChatController {
         chatService.deleteChatSession(sessionId);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    // The message's session may be a detached proxy, so ownership is checked against a freshly loaded one
+    private boolean isOwnedBy(ChatMessage message, User user) {
+        return user != null && chatService.getChatSessionById(message.getChatSession().getId())
+                .map(session -> session.getUser().getId().equals(user.getId()))
+                .orElse(false);
+    }
+}
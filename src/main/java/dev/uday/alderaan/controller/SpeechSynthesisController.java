@@ -1,17 +1,22 @@
 package dev.uday.alderaan.controller;
 
+import dev.uday.alderaan.service.AudioTranscoder;
 import dev.uday.alderaan.service.SpeechSynthesisService;
+import dev.uday.alderaan.service.TtsAudioCache;
+import dev.uday.alderaan.util.AudioEncoding;
+import dev.uday.alderaan.util.FileResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/speech")
 @RequiredArgsConstructor
@@ -19,21 +24,36 @@ import org.springframework.web.bind.annotation.RestController;
 public class SpeechSynthesisController {
 
     private final SpeechSynthesisService speechSynthesisService;
+    private final AudioTranscoder audioTranscoder;
 
     @PostMapping("/synthesize")
-    public ResponseEntity<byte[]> synthesizeSpeech(@RequestParam("text") String text) {
+    public void synthesizeSpeech(
+            @RequestParam("text") String text,
+            @RequestParam(value = "audioFormat", required = false) String audioFormat,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         log.debug("Synthesizing speech for text: {}", text);
 
-        byte[] audioData = speechSynthesisService.synthesizeSpeech(text);
+        TtsAudioCache.Clip clip = speechSynthesisService.synthesizeClip(text);
 
-        if (audioData.length == 0) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        if (clip.length() == 0) {
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            return;
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("audio/wav"));
-        headers.setContentLength(audioData.length);
+        response.setContentType("audio/wav");
+
+        // Large clips from the disk tier are sent by path, so they are never read onto the heap
+        AudioEncoding encoding = audioTranscoder.encoding(audioFormat);
+        if (encoding == AudioEncoding.WAV && clip.file() != null) {
+            response.setContentLengthLong(clip.length());
+            FileResponses.send(clip.file(), 0, clip.length(), request, response);
+            return;
+        }
 
-        return new ResponseEntity<>(audioData, headers, HttpStatus.OK);
+        // Plain WAV is written from the cached clip as is; compact formats are converted on the heap
+        byte[] audioData = encoding == AudioEncoding.WAV ? clip.bytes() : audioTranscoder.encode(clip.bytes(), encoding);
+        response.setContentLength(audioData.length);
+        response.getOutputStream().write(audioData);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,271 @@
+package dev.uday.alderaan.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.uday.alderaan.dto.TurnEvent;
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import dev.uday.alderaan.model.User;
+import dev.uday.alderaan.security.JwtHandshakeInterceptor;
+import dev.uday.alderaan.service.AudioBlobStore;
+import dev.uday.alderaan.service.AudioTranscoder;
+import dev.uday.alderaan.service.ChatService;
+import dev.uday.alderaan.service.ChatTurnService;
+import dev.uday.alderaan.service.SpeechRecognitionService;
+import dev.uday.alderaan.service.UserService;
+import dev.uday.alderaan.util.AudioEncoding;
+import dev.uday.alderaan.util.TurnContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VoiceWebSocketHandler extends AbstractWebSocketHandler {
+
+    public static final String ENDPOINT = "/ws/voice";
+
+    private final ChatTurnService chatTurnService;
+    private final AudioBlobStore audioBlobStore;
+    private final AudioTranscoder audioTranscoder;
+    private final SpeechRecognitionService speechRecognitionService;
+    private final ChatService chatService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final Scheduler blockingScheduler;
+
+    private final Map<String, VoiceConnection> connections = new ConcurrentHashMap<>();
+
+    @Value("${websocket.voice.max-utterance-size:10485760}")
+    private int maxUtteranceSize;
+
+    @Value("${websocket.voice.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.voice.send-buffer-size:4194304}")
+    private int sendBufferSize;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        String username = (String) session.getAttributes().get(JwtHandshakeInterceptor.USERNAME_ATTRIBUTE);
+        log.debug("Voice WebSocket connected: {} for user: {}", session.getId(), username);
+
+        // Turn events are sent from worker threads, so sends must be serialized
+        WebSocketSession outbound = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferSize);
+        connections.put(session.getId(), new VoiceConnection(outbound, username));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        VoiceConnection connection = connections.get(session.getId());
+        if (connection == null) {
+            return;
+        }
+
+        JsonNode command = objectMapper.readTree(message.getPayload());
+        String type = command.path("type").asText();
+
+        switch (type) {
+            case "start" -> startSession(connection, command.path("sessionId").asLong(), command.path("audioFormat").asText(null));
+            case "end" -> endUtterance(connection);
+            case "text" -> startTextTurn(connection, command.path("prompt").asText());
+            case "cancel" -> connection.cancelTurn();
+            default -> sendError(connection, "Unknown message type: " + type);
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        VoiceConnection connection = connections.get(session.getId());
+        if (connection == null) {
+            return;
+        }
+
+        if (connection.chatSession == null) {
+            sendError(connection, "Send a start message before streaming audio");
+            return;
+        }
+
+        synchronized (connection.audioBuffer) {
+            if (connection.audioBuffer.size() + message.getPayloadLength() > maxUtteranceSize) {
+                connection.audioBuffer.reset();
+                sendError(connection, "Utterance exceeds the maximum audio size");
+                return;
+            }
+            byte[] frame = new byte[message.getPayloadLength()];
+            message.getPayload().get(frame);
+            connection.audioBuffer.write(frame);
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.error("Voice WebSocket transport error: {}", session.getId(), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        log.debug("Voice WebSocket closed: {} with status: {}", session.getId(), status);
+        VoiceConnection connection = connections.remove(session.getId());
+        if (connection != null) {
+            connection.cancelTurn();
+        }
+    }
+
+    private void startSession(VoiceConnection connection, Long sessionId, String audioFormat) throws IOException {
+        User user = userService.findByUsername(connection.username);
+        ChatSession chatSession = chatService.getChatSessionById(sessionId)
+                .filter(session -> user != null && session.getUser().getId().equals(user.getId()))
+                .orElse(null);
+
+        if (chatSession == null) {
+            sendError(connection, "Session not found");
+            return;
+        }
+
+        connection.cancelTurn();
+        connection.chatSession = chatSession;
+        connection.audioEncoding = audioTranscoder.encoding(audioFormat);
+        send(connection, Map.of("type", "ready", "sessionId", sessionId));
+    }
+
+    private void endUtterance(VoiceConnection connection) throws IOException {
+        if (connection.chatSession == null) {
+            sendError(connection, "Send a start message before ending an utterance");
+            return;
+        }
+
+        byte[] audio;
+        synchronized (connection.audioBuffer) {
+            audio = connection.audioBuffer.toByteArray();
+            connection.audioBuffer.reset();
+        }
+
+        if (audio.length == 0) {
+            sendError(connection, "No audio received");
+            return;
+        }
+
+        ChatSession chatSession = connection.chatSession;
+        Flux<TurnEvent> turn = Mono.fromCallable(TurnContext.withEndpoint(ENDPOINT, () -> speechRecognitionService.recognizeSpeech(audio, "utterance.wav")))
+                .subscribeOn(blockingScheduler)
+                .flatMapMany(recognizedText -> {
+                    log.debug("Recognized text: {}", recognizedText);
+                    if (recognizedText == null || recognizedText.trim().isEmpty()) {
+                        return Flux.error(new IllegalStateException("No speech recognized"));
+                    }
+                    // Still on the blocking scheduler here, so the utterance can be written out directly
+                    String userAudioKey = audioBlobStore.tryStore(audio, "wav");
+                    return Flux.just(TurnEvent.transcript(recognizedText))
+                            .concatWith(chatTurnService.streamSpeechTurn(chatSession, ChatMessage.MessageType.USER_AUDIO,
+                                    recognizedText, userAudioKey));
+                });
+
+        startTurn(connection, turn);
+    }
+
+    private void startTextTurn(VoiceConnection connection, String prompt) throws IOException {
+        if (connection.chatSession == null) {
+            sendError(connection, "Send a start message before sending a prompt");
+            return;
+        }
+
+        if (prompt == null || prompt.trim().isEmpty()) {
+            sendError(connection, "No prompt provided");
+            return;
+        }
+
+        Flux<TurnEvent> turn = chatTurnService.streamSpeechTurn(connection.chatSession, ChatMessage.MessageType.USER_TEXT, prompt)
+                .subscribeOn(blockingScheduler);
+
+        startTurn(connection, turn);
+    }
+
+    private void startTurn(VoiceConnection connection, Flux<TurnEvent> turn) {
+        // A new turn barges in on whatever the assistant is still saying
+        connection.cancelTurn();
+        connection.activeTurn = turn.contextWrite(TurnContext.withEndpoint(ENDPOINT)).subscribe(
+                event -> sendEvent(connection, event),
+                error -> {
+                    log.error("Error processing voice WebSocket turn", error);
+                    sendErrorQuietly(connection, error.getMessage() != null ? error.getMessage() : "Failed to process voice turn");
+                });
+    }
+
+    private void sendEvent(VoiceConnection connection, TurnEvent turnEvent) {
+        try {
+            TurnEvent event = audioTranscoder.encode(turnEvent, connection.audioEncoding);
+            Map<String, Object> data = new HashMap<>();
+            data.put("type", event.getType().name().toLowerCase());
+            data.put("content", event.getText());
+
+            if (event.getType() == TurnEvent.Type.AUDIO) {
+                // The audio segment follows its metadata as a binary frame
+                data.put("index", event.getIndex());
+                data.put("size", event.getAudio().length);
+                send(connection, data);
+                connection.session.sendMessage(new BinaryMessage(event.getAudio()));
+            } else {
+                send(connection, data);
+            }
+        } catch (IOException e) {
+            log.error("Error sending voice WebSocket event", e);
+            connection.cancelTurn();
+        }
+    }
+
+    private void send(VoiceConnection connection, Map<String, Object> data) throws IOException {
+        connection.session.sendMessage(new TextMessage(objectMapper.writeValueAsString(data)));
+    }
+
+    private void sendError(VoiceConnection connection, String message) throws IOException {
+        send(connection, Map.of("type", "error", "error", message));
+    }
+
+    private void sendErrorQuietly(VoiceConnection connection, String message) {
+        try {
+            sendError(connection, message);
+        } catch (IOException e) {
+            log.debug("Unable to send error to closed voice WebSocket", e);
+        }
+    }
+
+    private static class VoiceConnection {
+        private final WebSocketSession session;
+        private final String username;
+        private final ByteArrayOutputStream audioBuffer = new ByteArrayOutputStream();
+        private volatile ChatSession chatSession;
+        private volatile AudioEncoding audioEncoding = AudioEncoding.WAV;
+        private volatile Disposable activeTurn;
+
+        private VoiceConnection(WebSocketSession session, String username) {
+            this.session = session;
+            this.username = username;
+        }
+
+        private void cancelTurn() {
+            Disposable turn = activeTurn;
+            if (turn != null) {
+                turn.dispose();
+            }
+        }
+    }
+}
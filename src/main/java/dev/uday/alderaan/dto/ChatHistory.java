@@ -0,0 +1,26 @@
+package dev.uday.alderaan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// What prompt building sees of a session: the rolling summary plus the messages it does not yet cover
+@Data
+@AllArgsConstructor
+public class ChatHistory {
+    private Long sessionId;
+    private String summary;
+    private Long summarizedUpToId;
+    private List<HistoryMessage> messages;
+
+    public static ChatHistory of(List<HistoryMessage> messages) {
+        return new ChatHistory(null, null, null, messages);
+    }
+
+    public ChatHistory withoutMessage(Long messageId) {
+        return new ChatHistory(sessionId, summary, summarizedUpToId, messages.stream()
+                .filter(message -> !message.getId().equals(messageId))
+                .toList());
+    }
+}
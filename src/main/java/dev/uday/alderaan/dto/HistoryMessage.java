@@ -0,0 +1,25 @@
+package dev.uday.alderaan.dto;
+
+import dev.uday.alderaan.model.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class HistoryMessage {
+    private Long id;
+    private ChatMessage.MessageType type;
+    private String content;
+
+    public static HistoryMessage from(ChatMessage message) {
+        return new HistoryMessage(message.getId(), message.getType(), message.getContent());
+    }
+
+    public boolean fromUser() {
+        return type == ChatMessage.MessageType.USER_TEXT || type == ChatMessage.MessageType.USER_AUDIO;
+    }
+
+    public boolean fromAssistant() {
+        return type == ChatMessage.MessageType.AI_TEXT || type == ChatMessage.MessageType.AI_AUDIO;
+    }
+}
@@ -0,0 +1,11 @@
+package dev.uday.alderaan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SessionSummary {
+    private String summary;
+    private Long summarizedUpToId;
+}
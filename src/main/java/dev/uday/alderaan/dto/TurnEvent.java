@@ -0,0 +1,33 @@
+package dev.uday.alderaan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TurnEvent {
+    private Type type;
+    private int index;
+    private String text;
+    private byte[] audio;
+
+    public enum Type {
+        TRANSCRIPT, TOKEN, AUDIO, DONE
+    }
+
+    public static TurnEvent transcript(String text) {
+        return new TurnEvent(Type.TRANSCRIPT, 0, text, null);
+    }
+
+    public static TurnEvent token(String text) {
+        return new TurnEvent(Type.TOKEN, 0, text, null);
+    }
+
+    public static TurnEvent audio(int index, String text, byte[] audio) {
+        return new TurnEvent(Type.AUDIO, index, text, audio);
+    }
+
+    public static TurnEvent done(String text) {
+        return new TurnEvent(Type.DONE, 0, text, null);
+    }
+}
@@ -0,0 +1,11 @@
+package dev.uday.alderaan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TurnResult {
+    private String text;
+    private byte[] audio;
+}
@@ -0,0 +1,21 @@
+package dev.uday.alderaan.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+@Getter
+public class BackendUnavailableException extends RuntimeException {
+
+    private final String backend;
+    private final HttpStatus status;
+    private final Duration retryAfter;
+
+    public BackendUnavailableException(String backend, HttpStatus status, Duration retryAfter, String message) {
+        super(message);
+        this.backend = backend;
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.uday.alderaan.exception;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+@RestControllerAdvice
+@Slf4j
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(BackendUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleBackendUnavailable(BackendUnavailableException e) {
+        log.warn("Shedding request, {} backend unavailable: {}", e.getBackend(), e.getMessage());
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of(
+                        "error", e.getMessage(),
+                        "backend", e.getBackend(),
+                        "retryAfter", retryAfterSeconds
+                ));
+    }
+}
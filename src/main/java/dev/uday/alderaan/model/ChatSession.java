@@ -35,6 +35,13 @@ public class ChatSession {
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    // Rolling summary of the messages up to and including summarizedUpToId, kept by ConversationSummarizer
+    @Column(columnDefinition = "TEXT")
+    private String summary;
+
+    @Column(name = "summarized_up_to_id")
+    private Long summarizedUpToId;
+
     @OneToMany(mappedBy = "chatSession", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<ChatMessage> messages;
@@ -16,6 +16,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheInvalidationListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,6 +46,10 @@ public class User {
     @JsonManagedReference
     private List<ChatSession> chatSessions;
 
+    // Username as last read from or written to the database, so a rename can evict the old name too
+    @JsonIgnore
+    private transient String persistedUsername;
+
     public User(String username, String password, String email) {
         this.username = username;
         this.password = password;
@@ -0,0 +1,48 @@
+package dev.uday.alderaan.model;
+
+import dev.uday.alderaan.security.PrincipalCache;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+// Instantiated through Spring's Hibernate bean container, so the cache is injected
+@RequiredArgsConstructor
+public class UserCacheInvalidationListener {
+
+    private final PrincipalCache principalCache;
+
+    @PostLoad
+    @PostPersist
+    public void remember(User user) {
+        user.setPersistedUsername(user.getUsername());
+    }
+
+    // The callbacks fire when the change is flushed, not when it commits: evicting then would let a concurrent
+    // login reload the old row and cache it again, so eviction waits for the commit. A rename evicts both names,
+    // or the principal cached under the old one would stay valid until it expired.
+    @PostUpdate
+    @PostRemove
+    public void invalidate(User user) {
+        String previous = user.getPersistedUsername();
+        List<String> usernames = previous == null || previous.equals(user.getUsername())
+                ? List.of(user.getUsername()) : List.of(previous, user.getUsername());
+        user.setPersistedUsername(user.getUsername());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            usernames.forEach(principalCache::invalidate);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                usernames.forEach(principalCache::invalidate);
+            }
+        });
+    }
+}
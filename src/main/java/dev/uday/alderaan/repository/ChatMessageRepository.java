@@ -1,8 +1,12 @@
 package dev.uday.alderaan.repository;
 
+import dev.uday.alderaan.dto.HistoryMessage;
 import dev.uday.alderaan.model.ChatMessage;
 import dev.uday.alderaan.model.ChatSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +15,16 @@ import java.util.List;
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     List<ChatMessage> findByChatSessionOrderByCreatedAtAsc(ChatSession chatSession);
     List<ChatMessage> findByChatSessionIdOrderByCreatedAtAsc(Long chatSessionId);
-}
\ No newline at end of file
+
+    // Newest first so the limit keeps the most recent rows; served by idx_chat_messages_session_created.
+    // Messages up to afterId are already covered by the session summary.
+    @Query("SELECT new dev.uday.alderaan.dto.HistoryMessage(m.id, m.type, m.content) FROM ChatMessage m " +
+            "WHERE m.chatSession.id = :chatSessionId AND m.id > :afterId ORDER BY m.createdAt DESC, m.id DESC")
+    List<HistoryMessage> findRecentHistory(@Param("chatSessionId") Long chatSessionId, @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT new dev.uday.alderaan.dto.HistoryMessage(m.id, m.type, m.content) FROM ChatMessage m " +
+            "WHERE m.chatSession.id = :chatSessionId AND m.id > :afterId AND m.id <= :upToId ORDER BY m.id ASC")
+    List<HistoryMessage> findHistoryRange(@Param("chatSessionId") Long chatSessionId, @Param("afterId") Long afterId,
+                                          @Param("upToId") Long upToId);
+}
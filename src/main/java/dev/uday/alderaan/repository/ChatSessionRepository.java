@@ -1,14 +1,29 @@
 package dev.uday.alderaan.repository;
 
+import dev.uday.alderaan.dto.SessionSummary;
 import dev.uday.alderaan.model.ChatSession;
 import dev.uday.alderaan.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChatSessionRepository extends JpaRepository<ChatSession, Long> {
     List<ChatSession> findByUserOrderByCreatedAtDesc(User user);
     List<ChatSession> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    @Query("SELECT new dev.uday.alderaan.dto.SessionSummary(s.summary, s.summarizedUpToId) FROM ChatSession s " +
+            "WHERE s.id = :id")
+    Optional<SessionSummary> findSummary(@Param("id") Long id);
+
+    // Only ever moves the summary forward, so a slow summarization cannot undo a newer one
+    @Modifying
+    @Query("UPDATE ChatSession s SET s.summary = :summary, s.summarizedUpToId = :upToId " +
+            "WHERE s.id = :id AND (s.summarizedUpToId IS NULL OR s.summarizedUpToId < :upToId)")
+    int updateSummary(@Param("id") Long id, @Param("summary") String summary, @Param("upToId") Long upToId);
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package dev.uday.alderaan.security;
 
 import dev.uday.alderaan.service.UserService;
 import dev.uday.alderaan.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,10 +21,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final PrincipalCache principalCache;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserService userService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserService userService, PrincipalCache principalCache) {
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -31,22 +34,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String requestTokenHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwtToken = null;
+        Claims claims = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(jwtToken);
+                // Signature and expiry are verified once here; the claims are trusted from this point on
+                claims = jwtUtil.verifyToken(jwtToken);
             } catch (Exception e) {
                 log.error("Unable to get JWT Token or JWT Token has expired", e);
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.loadUserByUsername(username);
+        if (claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = principalCache.get(claims.getSubject(), userService::loadUserByUsername);
 
-            if (jwtUtil.validateToken(jwtToken, userDetails.getUsername())) {
+            if (userDetails.getUsername().equals(claims.getSubject())) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
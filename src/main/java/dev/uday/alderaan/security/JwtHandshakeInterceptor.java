@@ -0,0 +1,64 @@
+package dev.uday.alderaan.security;
+
+import dev.uday.alderaan.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+@Slf4j
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String USERNAME_ATTRIBUTE = "username";
+
+    private final JwtUtil jwtUtil;
+
+    public JwtHandshakeInterceptor(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+
+        String jwtToken = resolveToken(request);
+
+        if (jwtToken != null) {
+            try {
+                attributes.put(USERNAME_ATTRIBUTE, jwtUtil.verifyToken(jwtToken).getSubject());
+                return true;
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Invalid JWT token on WebSocket handshake: {}", e.getMessage());
+            }
+        }
+
+        log.debug("Rejected WebSocket handshake without a valid JWT from: {}", request.getRemoteAddress());
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        return false;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private String resolveToken(ServerHttpRequest request) {
+        String requestTokenHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
+            return requestTokenHeader.substring(7);
+        }
+
+        // Browsers cannot set headers on a WebSocket handshake, so the token may also come as a query parameter
+        return UriComponentsBuilder.fromUri(request.getURI())
+                .build()
+                .getQueryParams()
+                .getFirst("token");
+    }
+}
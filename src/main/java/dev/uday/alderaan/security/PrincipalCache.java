@@ -0,0 +1,40 @@
+package dev.uday.alderaan.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private final Cache<String, UserDetails> principals;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        return principals.get(username, loader);
+    }
+
+    public void invalidate(String username) {
+        log.debug("Invalidating cached principal: {}", username);
+        principals.invalidate(username);
+    }
+}
@@ -1,16 +1,27 @@
 package dev.uday.alderaan.service;
 
-import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.HistoryMessage;
+import dev.uday.alderaan.exception.BackendUnavailableException;
 import dev.uday.alderaan.model.ChatSession;
+import dev.uday.alderaan.util.TokenEstimator;
+import dev.uday.alderaan.util.TurnContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.ollama.OllamaChatModel;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @Slf4j
@@ -19,6 +30,11 @@ public class AiService {
     private final ChatClient chatClient;
     private final SpeechSynthesisService speechSynthesisService;
     private final ChatService chatService;
+    private final BackendGuards backendGuards;
+    private final TurnMetrics turnMetrics;
+    private final ConversationSummarizer conversationSummarizer;
+    private final SemanticResponseCache semanticResponseCache;
+    private final LlmResponseCache llmResponseCache;
 
     @Value("${ollama.system.instructions:You are a helpful AI assistant. Provide short responses like chatting face to face without markdown, emojis, or code blocks.}")
     private String systemInstructions;
@@ -26,17 +42,39 @@ public class AiService {
     @Value("${ollama.max.history.messages:20}")
     private int maxHistoryMessages;
 
-    public AiService(SpeechSynthesisService speechSynthesisService, OllamaChatModel chatModel, ChatService chatService) {
+    // Estimated tokens of summary plus raw history per prompt; prefill time grows with it
+    @Value("${ollama.history.token-budget:1024}")
+    private int historyTokenBudget;
+
+    public AiService(SpeechSynthesisService speechSynthesisService, OllamaChatModel chatModel, ChatService chatService,
+                     BackendGuards backendGuards, TurnMetrics turnMetrics, ConversationSummarizer conversationSummarizer,
+                     SemanticResponseCache semanticResponseCache, LlmResponseCache llmResponseCache) {
         this.speechSynthesisService = speechSynthesisService;
         this.chatService = chatService;
+        this.backendGuards = backendGuards;
+        this.turnMetrics = turnMetrics;
+        this.conversationSummarizer = conversationSummarizer;
+        this.semanticResponseCache = semanticResponseCache;
+        this.llmResponseCache = llmResponseCache;
         this.chatClient = ChatClient.create(chatModel);
     }
 
     public String getTextResponse(String prompt) {
         try {
             log.debug("Sending prompt to Ollama: {}", prompt);
-            String fullPrompt = systemInstructions + "\n\nUser: " + prompt + "\nAssistant:";
-            return getResponse(fullPrompt);
+            // Without history the answer depends on the prompt alone, so paraphrases can share one
+            SemanticResponseCache.Lookup cached = lookupSemanticCache(prompt);
+            if (cached != null && cached.response().isPresent()) {
+                return cached.response().get();
+            }
+
+            String response = getResponse(new Prompt(List.of(new SystemMessage(systemInstructions), new UserMessage(prompt))));
+            if (cached != null && response != null && !response.isBlank()) {
+                semanticResponseCache.put(prompt, cached, response);
+            }
+            return response;
+        } catch (BackendUnavailableException | CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error getting response from Ollama", e);
             return "Sorry, I'm having trouble processing your request right now.";
@@ -44,75 +82,156 @@ public class AiService {
     }
 
     public String getTextResponseWithHistory(String prompt, ChatSession session) {
+        try {
+            return getTextResponseWithHistory(prompt, chatService.getRecentHistory(session));
+        } catch (BackendUnavailableException | CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error loading history for session: {}", session.getId(), e);
+            return "Sorry, I'm having trouble processing your request right now.";
+        }
+    }
+
+    public String getTextResponseWithHistory(String prompt, ChatHistory history) {
         try {
             log.debug("Sending prompt with history to Ollama: {}", prompt);
-            String fullPrompt = buildPromptWithHistory(prompt, session);
+            long buildStart = System.nanoTime();
+            Prompt fullPrompt = new Prompt(buildMessagesWithHistory(prompt, history));
+            turnMetrics.record(TurnMetrics.PROMPT_BUILD, buildStart);
             return getResponse(fullPrompt);
+        } catch (BackendUnavailableException | CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error getting response with history from Ollama", e);
             return "Sorry, I'm having trouble processing your request right now.";
         }
     }
 
+    public Flux<String> streamTextResponseWithHistory(String prompt, ChatSession session) {
+        return Flux.defer(() -> streamTextResponseWithHistory(prompt, chatService.getRecentHistory(session)));
+    }
+
+    public Flux<String> streamTextResponseWithHistory(String prompt, ChatHistory history) {
+        return Flux.deferContextual(context -> {
+                    log.debug("Streaming prompt with history to Ollama: {}", prompt);
+                    String endpoint = TurnContext.endpoint(context);
+                    long buildStart = System.nanoTime();
+                    Prompt fullPrompt = new Prompt(buildMessagesWithHistory(prompt, history));
+                    turnMetrics.record(TurnMetrics.PROMPT_BUILD, endpoint, buildStart);
+                    return streamResponse(fullPrompt, endpoint);
+                })
+                .onErrorResume(e -> !(e instanceof BackendUnavailableException), e -> {
+                    log.error("Error streaming response with history from Ollama", e);
+                    return Flux.just("Sorry, I'm having trouble processing your request right now.");
+                });
+    }
+
     public byte[] getSpeechResponse(String prompt) {
         String textResponse = getTextResponse(prompt);
         return speechSynthesisService.synthesizeSpeech(textResponse);
     }
 
-    public byte[] getSpeechResponseWithHistory(String prompt, ChatSession session) {
-        String textResponse = getTextResponseWithHistory(prompt, session);
-        return speechSynthesisService.synthesizeSpeech(textResponse);
+    // A failing embedding model only costs the cache, never the answer
+    private SemanticResponseCache.Lookup lookupSemanticCache(String prompt) {
+        if (semanticResponseCache == null || !semanticResponseCache.isEnabled()) {
+            return null;
+        }
+        try {
+            return semanticResponseCache.lookup(prompt);
+        } catch (Exception e) {
+            log.warn("Semantic cache lookup failed, asking Ollama directly", e);
+            return null;
+        }
     }
 
-    private String getResponse(String fullPrompt) {
-        String response = chatClient
-                .prompt(fullPrompt)
-                .call()
-                .content();
-
-        log.debug("Received response from Ollama: {}", response);
-        return response;
+    private String getResponse(Prompt fullPrompt) throws Exception {
+        // Duplicate prompts wait for the first copy instead of taking another Ollama permit
+        return llmResponseCache.getOrGenerate(fullPrompt, () -> {
+            // Includes time queued behind the Ollama bulkhead, which is part of what the caller waits for
+            long start = System.nanoTime();
+            String response = backendGuards.getOllama().call(() -> chatClient
+                    .prompt(fullPrompt)
+                    .call()
+                    .content());
+            turnMetrics.record(TurnMetrics.LLM_TOTAL, start);
+
+            log.debug("Received response from Ollama: {}", response);
+            return response;
+        });
     }
 
-    private String buildPromptWithHistory(String currentPrompt, ChatSession session) {
-        StringBuilder promptBuilder = new StringBuilder();
-        promptBuilder.append(systemInstructions).append("\n\n");
+    private Flux<String> streamResponse(Prompt fullPrompt, String endpoint) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean firstToken = new AtomicBoolean(true);
+            return backendGuards.getOllama().stream(chatClient
+                            .prompt(fullPrompt)
+                            .stream()
+                            .content())
+                    .doOnNext(token -> {
+                        if (firstToken.compareAndSet(true, false)) {
+                            turnMetrics.record(TurnMetrics.LLM_FIRST_TOKEN, endpoint, start);
+                        }
+                    })
+                    .doOnComplete(() -> turnMetrics.record(TurnMetrics.LLM_TOTAL, endpoint, start));
+        });
+    }
 
-        // Get recent messages from the session
-        List<ChatMessage> recentMessages = chatService.getSessionMessages(session)
-                .stream()
-                .filter(msg -> msg.getType() == ChatMessage.MessageType.USER_TEXT ||
-                        msg.getType() == ChatMessage.MessageType.USER_AUDIO ||
-                        msg.getType() == ChatMessage.MessageType.AI_TEXT ||
-                        msg.getType() == ChatMessage.MessageType.AI_AUDIO)
-                .sorted(Comparator.comparing(ChatMessage::getCreatedAt))
-                .collect(Collectors.toList());
+    // Sent as chat messages so Ollama applies the model's chat template. The layout keeps everything before
+    // the new prompt byte-identical between turns, which lets Ollama reuse its KV cache for that prefix.
+    private List<Message> buildMessagesWithHistory(String currentPrompt, ChatHistory history) {
+        List<Message> messages = new ArrayList<>();
+
+        // Older turns are represented by the rolling summary instead of their raw text. It shares the one
+        // system message, since chat templates like Gemma's do not expect several.
+        String summary = history.getSummary();
+        if (summary != null && !summary.isBlank()) {
+            messages.add(new SystemMessage(systemInstructions + "\n\nSummary of the conversation so far: " + summary));
+        } else {
+            messages.add(new SystemMessage(systemInstructions));
+        }
 
-        // Limit to recent messages to avoid token limits
-        int startIndex = Math.max(0, recentMessages.size() - maxHistoryMessages);
-        recentMessages = recentMessages.subList(startIndex, recentMessages.size());
+        // History arrives oldest-first; keep the newest messages that fit the remaining budget
+        List<HistoryMessage> recentMessages = history.getMessages();
+        int startIndex = selectWindow(recentMessages, historyTokenBudget - TokenEstimator.estimate(summary));
+        if (startIndex > 0 && conversationSummarizer != null) {
+            conversationSummarizer.windowSlid(history, recentMessages.get(startIndex - 1).getId(), startIndex);
+        }
 
         // Build conversation history
-        for (ChatMessage message : recentMessages) {
-            if (isUserMessage(message.getType())) {
-                promptBuilder.append("User: ").append(message.getContent()).append("\n");
-            } else if (isAiMessage(message.getType())) {
-                promptBuilder.append("Assistant: ").append(message.getContent()).append("\n");
+        for (HistoryMessage message : recentMessages.subList(startIndex, recentMessages.size())) {
+            if (message.fromUser()) {
+                messages.add(new UserMessage(message.getContent()));
+            } else if (message.fromAssistant()) {
+                messages.add(new AssistantMessage(message.getContent()));
             }
         }
 
         // Add current prompt
-        promptBuilder.append("User: ").append(currentPrompt).append("\n");
-        promptBuilder.append("Assistant:");
+        messages.add(new UserMessage(currentPrompt));
 
-        return promptBuilder.toString();
+        return messages;
     }
 
-    private boolean isUserMessage(ChatMessage.MessageType type) {
-        return type == ChatMessage.MessageType.USER_TEXT || type == ChatMessage.MessageType.USER_AUDIO;
-    }
+    private int selectWindow(List<HistoryMessage> messages, int tokenBudget) {
+        // Leave room in the history cache for messages that have slid out but are not summarized yet
+        int batchMessages = conversationSummarizer != null ? conversationSummarizer.getBatchMessages() : 0;
+        int maxMessages = Math.max(1, maxHistoryMessages - batchMessages);
+
+        int remaining = tokenBudget;
+        int startIndex = messages.size();
+        while (startIndex > 0 && messages.size() - startIndex < maxMessages) {
+            int cost = TokenEstimator.estimateMessage(messages.get(startIndex - 1).getContent());
+            if (cost > remaining) {
+                break;
+            }
+            remaining -= cost;
+            startIndex--;
+        }
 
-    private boolean isAiMessage(ChatMessage.MessageType type) {
-        return type == ChatMessage.MessageType.AI_TEXT || type == ChatMessage.MessageType.AI_AUDIO;
+        // Slide the window in steps rather than one message per turn: while the start stays put the prompt
+        // prefix is unchanged and only the new messages need prefill
+        int step = Math.max(1, batchMessages);
+        return Math.min(messages.size(), (startIndex + step - 1) / step * step);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package dev.uday.alderaan.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+// Content-addressed store for message audio. A blob's key is the SHA-256 of its bytes plus the file
+// extension, so identical audio is stored once and a stored blob never changes. Files are sharded into
+// two directory levels by the leading hex digits to keep directories small.
+@Component
+@Slf4j
+public class AudioBlobStore {
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]{1,5}");
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,5}");
+    private static final Map<String, MediaType> CONTENT_TYPES = Map.of(
+            "wav", MediaType.parseMediaType("audio/wav"),
+            "mp3", MediaType.parseMediaType("audio/mpeg"),
+            "ogg", MediaType.parseMediaType("audio/ogg"),
+            "webm", MediaType.parseMediaType("audio/webm"),
+            "m4a", MediaType.parseMediaType("audio/mp4"),
+            "flac", MediaType.parseMediaType("audio/flac"));
+
+    private final Path root;
+
+    public AudioBlobStore(@Value("${audio.store.dir:${java.io.tmpdir}/alderaan/audio}") String root) throws IOException {
+        this.root = Files.createDirectories(Path.of(root));
+        log.debug("Audio blob store at {}", this.root);
+    }
+
+    public String store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return store(in, extensionOf(file.getOriginalFilename()));
+        }
+    }
+
+    public String store(byte[] audio, String extension) throws IOException {
+        return store(new ByteArrayInputStream(audio), extension);
+    }
+
+    // The audio is hashed while it is copied, so an upload is never held in memory as a whole
+    public String store(InputStream audio, String extension) throws IOException {
+        MessageDigest digest = sha256();
+        // Written beside the store and moved into place once its name is known, so readers never see a
+        // partial file. A concurrent store of the same audio just replaces the file with identical bytes.
+        Path temp = Files.createTempFile(root, "upload", ".tmp");
+        try {
+            try (InputStream in = new DigestInputStream(audio, digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String key = HexFormat.of().formatHex(digest.digest()) + "."
+                    + (EXTENSION.matcher(extension).matches() ? extension : "bin");
+            Path path = pathFor(key);
+            if (!Files.exists(path)) {
+                Files.createDirectories(path.getParent());
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Replay is a convenience: failing to keep the audio must never fail the turn that produced it
+    public String tryStore(MultipartFile file) {
+        try {
+            return store(file);
+        } catch (IOException e) {
+            log.warn("Unable to store uploaded audio", e);
+            return null;
+        }
+    }
+
+    public String tryStore(byte[] audio, String extension) {
+        if (audio == null || audio.length == 0) {
+            return null;
+        }
+        try {
+            return store(audio, extension);
+        } catch (IOException e) {
+            log.warn("Unable to store audio", e);
+            return null;
+        }
+    }
+
+    // Keys come from the database, but are still checked so they can never name a path outside the store
+    public Optional<Path> find(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathFor(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public MediaType contentType(String key) {
+        return CONTENT_TYPES.getOrDefault(key.substring(key.lastIndexOf('.') + 1), MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    // The content hash part of the key, which doubles as a strong ETag
+    public String hash(String key) {
+        return key.substring(0, key.indexOf('.'));
+    }
+
+    private Path pathFor(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null || filename.lastIndexOf('.') < 0) {
+            return "bin";
+        }
+        return filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
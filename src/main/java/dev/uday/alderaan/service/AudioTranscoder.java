@@ -0,0 +1,354 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.dto.TurnEvent;
+import dev.uday.alderaan.util.AudioCodecs;
+import dev.uday.alderaan.util.AudioEncoding;
+import dev.uday.alderaan.util.MultipartBodyPublisher;
+import dev.uday.alderaan.util.PolyphaseResampler;
+import dev.uday.alderaan.util.TurnContext;
+import dev.uday.alderaan.util.WavFiles;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Pure-Java audio stage on both sides of the speech sidecar. Uploads are downmixed and resampled to 16-bit
+// mono at the rate Whisper works at while they are sent for recognition, and replies can be re-encoded
+// into a compact WAV format the client asked for. Audio is decoded in fixed-size chunks: uploads are never
+// held in memory, and replies only hold their (much smaller) converted samples.
+@Component
+@Slf4j
+public class AudioTranscoder {
+
+    private static final int FRAMES_PER_CHUNK = 4096;
+    private static final int ADPCM_BLOCK_ALIGN = 256;
+    private static final int MAX_PREALLOCATED_SAMPLES = 1 << 20;
+
+    private final TurnMetrics turnMetrics;
+    private final boolean sttNormalize;
+    private final int sttSampleRate;
+    private final int compactSampleRate;
+    private final AudioEncoding defaultEncoding;
+
+    public AudioTranscoder(TurnMetrics turnMetrics,
+                           @Value("${speech.stt.normalize.enabled:true}") boolean sttNormalize,
+                           @Value("${speech.stt.normalize.sample-rate:16000}") int sttSampleRate,
+                           @Value("${speech.tts.compact.sample-rate:16000}") int compactSampleRate,
+                           @Value("${speech.tts.default-format:wav}") String defaultFormat) {
+        this.turnMetrics = turnMetrics;
+        this.sttNormalize = sttNormalize;
+        this.sttSampleRate = sttSampleRate;
+        this.compactSampleRate = compactSampleRate;
+        this.defaultEncoding = AudioEncoding.parse(defaultFormat).orElse(AudioEncoding.WAV);
+    }
+
+    // Unknown formats fall back to the default rather than failing the turn
+    public AudioEncoding encoding(String requested) {
+        return AudioEncoding.parse(requested).orElseGet(() -> {
+            if (requested != null && !requested.isBlank()) {
+                log.debug("Unknown audio format requested: {}", requested);
+            }
+            return defaultEncoding;
+        });
+    }
+
+    // The converted upload is streamed: the source converts as the request body is read, and size is exact
+    public record NormalizedUpload(MultipartBodyPublisher.InputStreamSource audio, long size) {
+    }
+
+    // Returns null when the upload should be sent as is: normalization is off, it is not a WAV this stage can
+    // read, its length is unknown, or it already is 16-bit mono at or below the target rate. Only the header is
+    // read here; conversion runs chunk by chunk while the request body is sent, so heap use stays flat.
+    public NormalizedUpload normalizeForStt(MultipartBodyPublisher.InputStreamSource upload) throws IOException {
+        if (!sttNormalize) {
+            return null;
+        }
+
+        WavFiles.Header header;
+        try (InputStream in = upload.getInputStream()) {
+            header = WavFiles.readHeader(in);
+        }
+        // Lower rates are kept: upsampling would only make the request bigger for the same audio
+        if (header == null || header.dataLength() < 0 || (header.format() == WavFiles.FORMAT_PCM
+                && header.bitsPerSample() == 16 && header.channels() == 1 && header.sampleRate() <= sttSampleRate)) {
+            return null;
+        }
+
+        int outputRate = Math.min(header.sampleRate(), sttSampleRate);
+        long frames = header.dataLength() / header.blockAlign();
+        long samples = outputRate == header.sampleRate() ? frames
+                : (frames * outputRate + header.sampleRate() - 1) / header.sampleRate();
+        if (samples * 2 > Integer.MAX_VALUE - WavFiles.PCM_HEADER_LENGTH) {
+            return null;
+        }
+        if (outputRate != header.sampleRate()) {
+            // Fails an unsupported ratio now, while the upload can still be sent unchanged
+            new PolyphaseResampler(header.sampleRate(), outputRate);
+        }
+
+        String endpoint = TurnContext.endpoint();
+        log.debug("Normalizing {} Hz {} channel upload to {} Hz mono", header.sampleRate(), header.channels(), outputRate);
+        return new NormalizedUpload(() -> {
+            InputStream in = upload.getInputStream();
+            WavFiles.Header reread = WavFiles.readHeader(in);
+            if (!header.equals(reread)) {
+                in.close();
+                throw new IOException("Upload changed between reads");
+            }
+            return new NormalizedStream(in, header, outputRate, samples, endpoint);
+        }, WavFiles.PCM_HEADER_LENGTH + samples * 2);
+    }
+
+    public TurnEvent encode(TurnEvent event, AudioEncoding encoding) {
+        if (event.getType() != TurnEvent.Type.AUDIO || encoding == AudioEncoding.WAV) {
+            return event;
+        }
+        return TurnEvent.audio(event.getIndex(), event.getText(), encode(event.getAudio(), encoding));
+    }
+
+    // Falls back to the original audio whenever it cannot be converted
+    public byte[] encode(byte[] wav, AudioEncoding encoding) {
+        if (encoding == AudioEncoding.WAV || wav.length == 0) {
+            return wav;
+        }
+
+        long start = System.nanoTime();
+        try {
+            InputStream in = new ByteArrayInputStream(wav);
+            WavFiles.Header header = WavFiles.readHeader(in);
+            if (header == null) {
+                log.debug("Sending reply audio unconverted: not a PCM WAV file");
+                return wav;
+            }
+
+            short[] samples = decodeMono(in, header, compactSampleRate);
+            return switch (encoding) {
+                case MULAW -> WavFiles.write(WavFiles.FORMAT_MULAW, 1, compactSampleRate, compactSampleRate, 1, 8,
+                        new byte[0], samples.length, AudioCodecs.muLaw(samples));
+                case ADPCM -> {
+                    int samplesPerBlock = AudioCodecs.imaSamplesPerBlock(ADPCM_BLOCK_ALIGN);
+                    byte[] extension = {(byte) samplesPerBlock, (byte) (samplesPerBlock >> 8)};
+                    yield WavFiles.write(WavFiles.FORMAT_IMA_ADPCM, 1, compactSampleRate,
+                            compactSampleRate * ADPCM_BLOCK_ALIGN / samplesPerBlock, ADPCM_BLOCK_ALIGN, 4,
+                            extension, samples.length, AudioCodecs.imaAdpcm(samples, ADPCM_BLOCK_ALIGN));
+                }
+                case WAV -> wav;
+            };
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Unable to convert reply audio to {}", encoding, e);
+            return wav;
+        } finally {
+            turnMetrics.record(TurnMetrics.AUDIO_TRANSCODE, start);
+        }
+    }
+
+    private short[] decodeMono(InputStream in, WavFiles.Header header, int targetRate) throws IOException {
+        MonoDecoder decoder = new MonoDecoder(in, header, targetRate);
+        // Sized from the header, but never trusting it for more than about a minute of audio up front
+        long expected = header.dataLength() < 0 ? FRAMES_PER_CHUNK
+                : header.dataLength() / header.blockAlign() * targetRate / header.sampleRate() + 64;
+        Samples output = new Samples((int) Math.min(expected, MAX_PREALLOCATED_SAMPLES));
+
+        int count;
+        while ((count = decoder.read()) >= 0) {
+            output.add(decoder.output, count);
+        }
+        return output.toArray();
+    }
+
+    private static void downmix(ByteBuffer bytes, int frames, WavFiles.Header header, float[] mono) {
+        int channels = header.channels();
+        int width = header.bitsPerSample() / 8;
+        boolean floating = header.format() == WavFiles.FORMAT_IEEE_FLOAT;
+        for (int frame = 0; frame < frames; frame++) {
+            float sum = 0;
+            for (int channel = 0; channel < channels; channel++) {
+                int offset = (frame * channels + channel) * width;
+                sum += floating ? floatSample(bytes, offset, width) : intSample(bytes, offset, width);
+            }
+            mono[frame] = sum / channels;
+        }
+    }
+
+    private static float intSample(ByteBuffer bytes, int offset, int width) {
+        return switch (width) {
+            // 8-bit WAV is unsigned
+            case 1 -> ((bytes.get(offset) & 0xFF) - 128) / 128f;
+            case 2 -> bytes.getShort(offset) / 32768f;
+            case 3 -> ((bytes.get(offset) & 0xFF) | (bytes.get(offset + 1) & 0xFF) << 8 | bytes.get(offset + 2) << 16)
+                    / 8388608f;
+            default -> bytes.getInt(offset) / 2147483648f;
+        };
+    }
+
+    private static float floatSample(ByteBuffer bytes, int offset, int width) {
+        return width == 4 ? bytes.getFloat(offset) : (float) bytes.getDouble(offset);
+    }
+
+    private static short toShort(float value) {
+        return (short) Math.round(Math.max(-1f, Math.min(1f, value)) * Short.MAX_VALUE);
+    }
+
+    // Reads the data chunk a chunk at a time, averaging channels and resampling as it goes
+    private static final class MonoDecoder {
+        private final InputStream in;
+        private final WavFiles.Header header;
+        private final PolyphaseResampler resampler;
+        private final byte[] chunk;
+        private final ByteBuffer bytes;
+        private final float[] mono = new float[FRAMES_PER_CHUNK];
+        private long remaining;
+        private int carried;
+        private boolean flushed;
+        // Samples of the last read; only valid until the next one
+        private float[] output;
+
+        private MonoDecoder(InputStream in, WavFiles.Header header, int targetRate) {
+            this.in = in;
+            this.header = header;
+            this.resampler = header.sampleRate() == targetRate
+                    ? null : new PolyphaseResampler(header.sampleRate(), targetRate);
+            this.chunk = new byte[FRAMES_PER_CHUNK * header.blockAlign()];
+            this.bytes = ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN);
+            this.remaining = header.dataLength() < 0 ? Long.MAX_VALUE : header.dataLength();
+        }
+
+        // Number of samples placed in output, possibly zero, or -1 once the audio and the resampler tail are done
+        private int read() throws IOException {
+            if (remaining > 0) {
+                int read = in.read(chunk, carried, (int) Math.min(chunk.length - carried, remaining));
+                if (read >= 0) {
+                    remaining -= read;
+                    int available = carried + read;
+                    int frameSize = header.blockAlign();
+                    int frames = available / frameSize;
+                    downmix(bytes, frames, header, mono);
+
+                    // A frame split across reads is finished by the next one
+                    carried = available - frames * frameSize;
+                    System.arraycopy(chunk, frames * frameSize, chunk, 0, carried);
+
+                    if (resampler == null) {
+                        output = mono;
+                        return frames;
+                    }
+                    output = resampler.process(mono, frames);
+                    return output.length;
+                }
+                remaining = 0;
+            }
+            if (resampler != null && !flushed) {
+                flushed = true;
+                output = resampler.flush();
+                return output.length;
+            }
+            return -1;
+        }
+    }
+
+    // The normalized WAV, converted as it is read. Exactly the promised number of samples is produced: a
+    // truncated upload is padded with silence so the declared Content-Length always holds.
+    private final class NormalizedStream extends InputStream {
+        private final InputStream upload;
+        private final MonoDecoder decoder;
+        private final String endpoint;
+        private byte[] pending;
+        private int position;
+        private int limit;
+        private long remainingBytes;
+        private long convertNanos;
+        private boolean closed;
+
+        private NormalizedStream(InputStream upload, WavFiles.Header header, int outputRate, long samples,
+                                 String endpoint) {
+            this.upload = upload;
+            this.decoder = new MonoDecoder(upload, header, outputRate);
+            this.endpoint = endpoint;
+            this.remainingBytes = samples * 2;
+            this.pending = WavFiles.pcmHeader(1, outputRate, 16, remainingBytes);
+            this.limit = pending.length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == limit) {
+                if (remainingBytes == 0) {
+                    return -1;
+                }
+                refill();
+            }
+            int copied = Math.min(length, limit - position);
+            System.arraycopy(pending, position, target, offset, copied);
+            position += copied;
+            return copied;
+        }
+
+        private void refill() throws IOException {
+            long start = System.nanoTime();
+            int count = decoder.read();
+            int samples = count < 0
+                    ? (int) Math.min(remainingBytes / 2, FRAMES_PER_CHUNK)
+                    : (int) Math.min(remainingBytes / 2, count);
+            if (pending.length < samples * 2) {
+                pending = new byte[Math.max(samples * 2, FRAMES_PER_CHUNK * 2)];
+            }
+            for (int i = 0; i < samples; i++) {
+                short sample = count < 0 ? 0 : toShort(decoder.output[i]);
+                pending[i * 2] = (byte) sample;
+                pending[i * 2 + 1] = (byte) (sample >> 8);
+            }
+            position = 0;
+            limit = samples * 2;
+            remainingBytes -= limit;
+            convertNanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                // Only conversion time is recorded, not the time spent waiting on the socket in between
+                turnMetrics.record(TurnMetrics.AUDIO_TRANSCODE, endpoint, System.nanoTime() - convertNanos);
+            }
+            upload.close();
+        }
+    }
+
+    // Growable buffer of 16-bit samples
+    private static final class Samples {
+        private short[] samples;
+        private int size;
+
+        private Samples(int capacity) {
+            this.samples = new short[Math.max(16, capacity)];
+        }
+
+        private void add(float[] values, int length) {
+            if (size + length > samples.length) {
+                samples = Arrays.copyOf(samples, Math.max(samples.length * 2, size + length));
+            }
+            for (int i = 0; i < length; i++) {
+                samples[size++] = toShort(values[i]);
+            }
+        }
+
+        private short[] toArray() {
+            return Arrays.copyOf(samples, size);
+        }
+    }
+}
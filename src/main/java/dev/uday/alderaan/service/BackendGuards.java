@@ -0,0 +1,34 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.util.BackendGuard;
+import lombok.Getter;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@Getter
+public class BackendGuards {
+
+    private final BackendGuard ollama;
+    private final BackendGuard tts;
+    private final BackendGuard stt;
+
+    public BackendGuards(Environment environment) {
+        this.ollama = create(environment, "ollama", 4);
+        this.tts = create(environment, "tts", 2);
+        this.stt = create(environment, "stt", 2);
+    }
+
+    // Limits are read from backend.<name>.* so each backend can be sized to its own capacity
+    private static BackendGuard create(Environment environment, String name, int defaultMaxConcurrent) {
+        String prefix = "backend." + name + ".";
+        return new BackendGuard(name,
+                environment.getProperty(prefix + "max-concurrent", Integer.class, defaultMaxConcurrent),
+                environment.getProperty(prefix + "max-waiting", Integer.class, 16),
+                Duration.ofMillis(environment.getProperty(prefix + "max-wait-ms", Long.class, 10000L)),
+                environment.getProperty(prefix + "failure-threshold", Integer.class, 5),
+                Duration.ofMillis(environment.getProperty(prefix + "open-duration-ms", Long.class, 30000L)));
+    }
+}
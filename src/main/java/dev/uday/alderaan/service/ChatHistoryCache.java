@@ -0,0 +1,118 @@
+package dev.uday.alderaan.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.HistoryMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+public class ChatHistoryCache {
+
+    private final Cache<Long, SessionHistory> sessions;
+    private final int maxHistoryMessages;
+
+    public ChatHistoryCache(@Value("${ollama.max.history.messages:20}") int maxHistoryMessages,
+                            @Value("${chat.history.cache.max-sessions:10000}") long maxSessions,
+                            @Value("${chat.history.cache.idle-timeout-minutes:30}") long idleTimeoutMinutes) {
+        this.maxHistoryMessages = maxHistoryMessages;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(Duration.ofMinutes(idleTimeoutMinutes))
+                .build();
+    }
+
+    public ChatHistory getHistory(Long sessionId, Function<Long, ChatHistory> loader) {
+        return sessions.get(sessionId, id -> {
+            log.debug("Loading history for session: {} into cache", id);
+            ChatHistory loaded = loader.apply(id);
+            SessionHistory history = new SessionHistory(id, maxHistoryMessages);
+            history.summarize(loaded.getSummary(), loaded.getSummarizedUpToId());
+            loaded.getMessages().forEach(history::add);
+            return history;
+        }).snapshot();
+    }
+
+    public void append(Long sessionId, HistoryMessage message) {
+        // Sessions that are not cached will pick the message up from the database on their next load
+        sessions.asMap().computeIfPresent(sessionId, (id, history) -> {
+            history.add(message);
+            return history;
+        });
+    }
+
+    public void updateSummary(Long sessionId, String summary, Long summarizedUpToId) {
+        sessions.asMap().computeIfPresent(sessionId, (id, history) -> {
+            history.summarize(summary, summarizedUpToId);
+            return history;
+        });
+    }
+
+    public void invalidate(Long sessionId) {
+        sessions.invalidate(sessionId);
+    }
+
+    private static class SessionHistory {
+        private final Long sessionId;
+        private final int capacity;
+        private final ArrayDeque<HistoryMessage> messages;
+        private String summary;
+        private Long summarizedUpToId;
+
+        private SessionHistory(Long sessionId, int capacity) {
+            this.sessionId = sessionId;
+            this.capacity = capacity;
+            this.messages = new ArrayDeque<>(capacity);
+        }
+
+        private synchronized void add(HistoryMessage message) {
+            if (capacity <= 0 || isSummarized(message.getId())
+                    || messages.stream().anyMatch(existing -> existing.getId().equals(message.getId()))) {
+                return;
+            }
+
+            if (messages.isEmpty() || messages.peekLast().getId() < message.getId()) {
+                messages.addLast(message);
+            } else {
+                // Concurrent writers to the same session can commit out of order
+                List<HistoryMessage> ordered = new ArrayList<>(messages);
+                ordered.add(message);
+                ordered.sort(Comparator.comparing(HistoryMessage::getId));
+                messages.clear();
+                messages.addAll(ordered);
+            }
+
+            while (messages.size() > capacity) {
+                messages.pollFirst();
+            }
+        }
+
+        // Messages folded into the summary no longer need to be kept raw
+        private synchronized void summarize(String summary, Long summarizedUpToId) {
+            if (summarizedUpToId == null || isSummarized(summarizedUpToId)) {
+                return;
+            }
+            this.summary = summary;
+            this.summarizedUpToId = summarizedUpToId;
+            messages.removeIf(message -> isSummarized(message.getId()));
+        }
+
+        private boolean isSummarized(Long messageId) {
+            return summarizedUpToId != null && messageId <= summarizedUpToId;
+        }
+
+        private synchronized ChatHistory snapshot() {
+            return new ChatHistory(sessionId, summary, summarizedUpToId, List.copyOf(messages));
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.dto.HistoryMessage;
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Write-behind persistence for chat messages. Messages get their id and timestamp up front, become visible
+// to history reads immediately, and are inserted by a background writer in JDBC batches, one commit per
+// batch, so commits grow with batches rather than with messages. Rows the database rejects are dropped; a
+// batch that fails for any other reason (connection loss, timeouts, failover) is retried with backoff.
+@Component
+// Hibernate creates chat_messages_seq when the persistence unit starts
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class ChatMessageWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO chat_messages " +
+            "(id, chat_session_id, type, content, audio_file_path, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatHistoryCache chatHistoryCache;
+    private final TurnMetrics turnMetrics;
+
+    private final BlockingQueue<ChatMessage> queue;
+    private final DelayQueue<Retry> retries = new DelayQueue<>();
+    // Written but not yet committed, for read-your-writes on history and message listings
+    private final Map<Long, ChatMessage> pending = new ConcurrentHashMap<>();
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final int batchSize;
+    private final long lingerMs;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    private final Object idLock = new Object();
+    private long nextId;
+    private long idLimit;
+
+    private volatile boolean closed;
+    private Thread writerThread;
+
+    public ChatMessageWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             ChatHistoryCache chatHistoryCache, TurnMetrics turnMetrics,
+                             @Value("${chat.persistence.queue-capacity:1000}") int queueCapacity,
+                             @Value("${chat.persistence.batch-size:50}") int batchSize,
+                             @Value("${chat.persistence.linger-ms:20}") long lingerMs,
+                             @Value("${chat.persistence.max-retries:6}") int maxRetries,
+                             @Value("${chat.persistence.retry-backoff-ms:200}") long retryBackoffMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chatHistoryCache = chatHistoryCache;
+        this.turnMetrics = turnMetrics;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @PostConstruct
+    void start() {
+        alignSequence();
+        writerThread = Thread.ofPlatform().name("chat-writer").daemon().start(this::writeLoop);
+    }
+
+    // Flush everything still queued before the datasource goes away
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        flush();
+        // One last attempt for batches still backing off; failures are dropped now that the writer is closed
+        for (Retry retry : retries) {
+            if (retries.remove(retry)) {
+                writeBatch(retry.messages(), retry.attempt());
+            }
+        }
+        log.debug("Chat message writer stopped with {} messages unwritten", pending.size());
+    }
+
+    public ChatMessage write(ChatSession session, ChatMessage.MessageType type, String content, String audioFilePath) {
+        ChatMessage message = new ChatMessage(session, type, content);
+        message.setAudioFilePath(audioFilePath);
+        message.setId(allocateId());
+        message.setCreatedAt(LocalDateTime.now());
+
+        pending.put(message.getId(), message);
+        chatHistoryCache.append(session.getId(), HistoryMessage.from(message));
+
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                // A full queue pushes back on the caller, which writes a batch itself instead of dropping
+                while (!queue.offer(message)) {
+                    writeBatch(drain(List.of()), 0);
+                }
+                return message;
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        writeBatch(List.of(message), 0);
+        return message;
+    }
+
+    // Writes everything queued so far on the calling thread
+    public void flush() {
+        List<ChatMessage> batch = drain(List.of());
+        while (!batch.isEmpty()) {
+            writeBatch(batch, 0);
+            batch = drain(List.of());
+        }
+    }
+
+    public Optional<ChatMessage> pendingMessage(Long messageId) {
+        return Optional.ofNullable(pending.get(messageId));
+    }
+
+    public List<ChatMessage> pendingMessages(Long chatSessionId) {
+        return pending.values().stream()
+                .filter(message -> message.getChatSession().getId().equals(chatSessionId))
+                .sorted(Comparator.comparing(ChatMessage::getId))
+                .toList();
+    }
+
+    private void writeLoop() {
+        while (!closed) {
+            try {
+                Retry retry = retries.poll();
+                if (retry != null) {
+                    writeBatch(retry.messages(), retry.attempt());
+                    continue;
+                }
+
+                // Wake up in time for the next retry that comes due
+                Retry next = retries.peek();
+                long waitMs = next == null ? 1000 : Math.min(1000, Math.max(1, next.getDelay(TimeUnit.MILLISECONDS)));
+                ChatMessage first = queue.poll(waitMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Give concurrent turns a moment to join the batch
+                if (queue.size() < batchSize - 1) {
+                    linger();
+                }
+                writeBatch(drain(List.of(first)), 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Chat message writer failed", e);
+            }
+        }
+    }
+
+    private void linger() {
+        try {
+            Thread.sleep(lingerMs);
+        } catch (InterruptedException e) {
+            // Shutting down: write what has been taken off the queue, then stop
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<ChatMessage> drain(List<ChatMessage> head) {
+        List<ChatMessage> batch = new ArrayList<>(head);
+        queue.drainTo(batch, batchSize - batch.size());
+        return batch;
+    }
+
+    // Attempt counts the earlier failed tries of this batch
+    private void writeBatch(List<ChatMessage> batch, int attempt) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            written(batch);
+        } catch (DataIntegrityViolationException e) {
+            // One bad row (say, a session deleted in the meantime) must not take the rest of the batch with it
+            log.warn("Batch insert of {} chat messages failed, retrying one by one", batch.size(), e);
+            List<ChatMessage> failed = new ArrayList<>();
+            for (ChatMessage message : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(message)));
+                    written(List.of(message));
+                } catch (DataIntegrityViolationException rowFailure) {
+                    drop(message, rowFailure);
+                } catch (DataAccessException | TransactionException rowFailure) {
+                    failed.add(message);
+                }
+            }
+            retryLater(failed, attempt, e);
+        } catch (DataAccessException | TransactionException e) {
+            // Nothing says the rows are at fault, so they are kept and the whole batch is tried again later
+            retryLater(batch, attempt, e);
+        } finally {
+            turnMetrics.record(TurnMetrics.DB_WRITE, start);
+        }
+    }
+
+    // Messages stay pending, and so visible to reads, while they wait for another attempt
+    private void retryLater(List<ChatMessage> batch, int attempt, Exception error) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (closed || attempt >= maxRetries) {
+            log.error("Giving up on {} chat messages after {} attempts", batch.size(), attempt + 1, error);
+            batch.forEach(message -> drop(message, null));
+            return;
+        }
+
+        long backoffMs = retryBackoffMs << Math.min(attempt, 16);
+        log.warn("Writing {} chat messages failed, retrying in {} ms: {}", batch.size(), backoffMs, error.getMessage());
+        retries.add(new Retry(List.copyOf(batch), attempt + 1, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs)));
+    }
+
+    private void written(List<ChatMessage> batch) {
+        batch.forEach(message -> pending.remove(message.getId()));
+    }
+
+    private void drop(ChatMessage message, Exception error) {
+        if (error != null) {
+            log.error("Dropping chat message {} for session {}", message.getId(), message.getChatSession().getId(), error);
+        }
+        pending.remove(message.getId());
+        // The cached history already shows the message; reload it from what was actually stored
+        chatHistoryCache.invalidate(message.getChatSession().getId());
+    }
+
+    private void insert(List<ChatMessage> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, message) -> {
+            statement.setLong(1, message.getId());
+            statement.setLong(2, message.getChatSession().getId());
+            statement.setString(3, message.getType().name());
+            statement.setString(4, message.getContent());
+            statement.setString(5, message.getAudioFilePath());
+            statement.setTimestamp(6, Timestamp.valueOf(message.getCreatedAt()));
+        });
+    }
+
+    // Same pooled-lo scheme Hibernate uses for the entity: each sequence value reserves the next block of ids
+    private long allocateId() {
+        synchronized (idLock) {
+            if (nextId >= idLimit) {
+                nextId = jdbcTemplate.queryForObject("SELECT nextval('chat_messages_seq')", Long.class);
+                idLimit = nextId + ChatMessage.ID_ALLOCATION_SIZE;
+            }
+            return nextId++;
+        }
+    }
+
+    // Rows written while ids came from an identity column must not collide with sequence ids
+    private void alignSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM chat_messages", Long.class);
+        Map<String, Object> sequence = jdbcTemplate.queryForMap("SELECT last_value, is_called FROM chat_messages_seq");
+        long lastValue = ((Number) sequence.get("last_value")).longValue();
+        long next = Boolean.TRUE.equals(sequence.get("is_called")) ? lastValue + ChatMessage.ID_ALLOCATION_SIZE : lastValue;
+        if (next <= maxId) {
+            log.info("Moving chat_messages_seq past existing message id {}", maxId);
+            jdbcTemplate.queryForObject("SELECT setval('chat_messages_seq', ?, false)", Long.class, maxId + 1);
+        }
+    }
+
+    private record Retry(List<ChatMessage> messages, int attempt, long dueNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Retry) other).dueNanos);
+        }
+    }
+}
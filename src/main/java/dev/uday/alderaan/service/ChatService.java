@@ -1,5 +1,8 @@
 package dev.uday.alderaan.service;
 
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.HistoryMessage;
+import dev.uday.alderaan.dto.SessionSummary;
 import dev.uday.alderaan.model.ChatMessage;
 import dev.uday.alderaan.model.ChatSession;
 import dev.uday.alderaan.model.User;
@@ -7,11 +10,20 @@ import dev.uday.alderaan.repository.ChatMessageRepository;
 import dev.uday.alderaan.repository.ChatSessionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +32,12 @@ public class ChatService {
 
     private final ChatSessionRepository chatSessionRepository;
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatHistoryCache chatHistoryCache;
+    private final TurnMetrics turnMetrics;
+    private final ChatMessageWriter chatMessageWriter;
+
+    @Value("${ollama.max.history.messages:20}")
+    private int maxHistoryMessages;
 
     public ChatSession createChatSession(User user, String title) {
         ChatSession session = new ChatSession(user, title);
@@ -34,24 +52,102 @@ public class ChatService {
         return chatSessionRepository.findById(id);
     }
 
-    @Transactional
     public ChatMessage saveMessage(ChatSession session, ChatMessage.MessageType type, String content) {
-        ChatMessage message = new ChatMessage(session, type, content);
-        return chatMessageRepository.save(message);
+        return chatMessageWriter.write(session, type, content, null);
+    }
+
+    // Both messages are queued for the background writer and visible to history reads once this returns
+    public void saveTurn(ChatSession session, ChatMessage.MessageType userType, String userContent,
+                         ChatMessage.MessageType aiType, String aiContent) {
+        saveTurn(session, userType, userContent, null, aiType, aiContent, null);
+    }
+
+    // Audio keys point into the AudioBlobStore and may be null when there is no audio to keep
+    public void saveTurn(ChatSession session, ChatMessage.MessageType userType, String userContent, String userAudioKey,
+                         ChatMessage.MessageType aiType, String aiContent, String aiAudioKey) {
+        chatMessageWriter.write(session, userType, userContent, userAudioKey);
+        chatMessageWriter.write(session, aiType, aiContent, aiAudioKey);
+    }
+
+    // Includes messages still queued for writing, so audio is replayable as soon as the turn returns
+    public Optional<ChatMessage> getMessage(Long messageId) {
+        return chatMessageWriter.pendingMessage(messageId).or(() -> chatMessageRepository.findById(messageId));
     }
 
-    @Transactional
     public ChatMessage saveAudioMessage(ChatSession session, ChatMessage.MessageType type, String content, String audioFilePath) {
-        ChatMessage message = new ChatMessage(session, type, content);
-        message.setAudioFilePath(audioFilePath);
-        return chatMessageRepository.save(message);
+        return chatMessageWriter.write(session, type, content, audioFilePath);
     }
 
     public List<ChatMessage> getSessionMessages(ChatSession session) {
-        return chatMessageRepository.findByChatSessionOrderByCreatedAtAsc(session);
+        // Pending messages are read first: one committed in between is then found in the query instead
+        List<ChatMessage> pending = chatMessageWriter.pendingMessages(session.getId());
+        List<ChatMessage> messages = new ArrayList<>(chatMessageRepository.findByChatSessionOrderByCreatedAtAsc(session));
+        Set<Long> stored = messages.stream().map(ChatMessage::getId).collect(Collectors.toSet());
+        pending.stream().filter(message -> !stored.contains(message.getId())).forEach(messages::add);
+        return messages;
+    }
+
+    public ChatHistory getRecentHistory(ChatSession session) {
+        return getRecentHistory(session.getId());
+    }
+
+    // Only needs the id, so history can load while the session itself is still being resolved
+    public ChatHistory getRecentHistory(Long chatSessionId) {
+        long start = System.nanoTime();
+        try {
+            return chatHistoryCache.getHistory(chatSessionId, sessionId -> {
+                List<ChatMessage> pending = chatMessageWriter.pendingMessages(sessionId);
+                SessionSummary summary = chatSessionRepository.findSummary(sessionId)
+                        .orElseGet(() -> new SessionSummary(null, null));
+                Long afterId = summary.getSummarizedUpToId() != null ? summary.getSummarizedUpToId() : 0L;
+                List<HistoryMessage> recent = new ArrayList<>(chatMessageRepository.findRecentHistory(
+                        sessionId, afterId, PageRequest.of(0, Math.max(1, maxHistoryMessages))));
+                Collections.reverse(recent);
+                // The cache orders, de-duplicates and trims, so queued messages can simply be added
+                pending.stream()
+                        .filter(message -> message.getId() > afterId)
+                        .map(HistoryMessage::from)
+                        .forEach(recent::add);
+                return new ChatHistory(sessionId, summary.getSummary(), summary.getSummarizedUpToId(), recent);
+            });
+        } finally {
+            turnMetrics.record(TurnMetrics.HISTORY_LOAD, start);
+        }
+    }
+
+    // Includes messages still queued or backing off in the writer: the summary moves past this range, so any
+    // message left out here would be in neither the summary nor the prompt window
+    public List<HistoryMessage> getHistoryRange(Long chatSessionId, Long afterId, Long upToId) {
+        long from = afterId != null ? afterId : 0L;
+        // Pending messages are read first: one committed in between is then found in the query instead
+        List<ChatMessage> pending = chatMessageWriter.pendingMessages(chatSessionId);
+        List<HistoryMessage> messages = new ArrayList<>(chatMessageRepository.findHistoryRange(chatSessionId, from, upToId));
+        Set<Long> stored = messages.stream().map(HistoryMessage::getId).collect(Collectors.toSet());
+        pending.stream()
+                .filter(message -> message.getId() > from && message.getId() <= upToId && !stored.contains(message.getId()))
+                .map(HistoryMessage::from)
+                .forEach(messages::add);
+        messages.sort(Comparator.comparing(HistoryMessage::getId));
+        return messages;
+    }
+
+    @Transactional
+    public void updateSummary(Long chatSessionId, String summary, Long summarizedUpToId) {
+        if (chatSessionRepository.updateSummary(chatSessionId, summary, summarizedUpToId) > 0) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    chatHistoryCache.updateSummary(chatSessionId, summary, summarizedUpToId);
+                }
+            });
+        }
     }
 
     public void deleteChatSession(Long sessionId) {
+        // Queued messages must land before the cascade, or their inserts would fail on the missing session
+        chatMessageWriter.flush();
         chatSessionRepository.deleteById(sessionId);
+        chatHistoryCache.invalidate(sessionId);
     }
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,150 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.TurnEvent;
+import dev.uday.alderaan.dto.TurnResult;
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import dev.uday.alderaan.util.SentenceChunker;
+import dev.uday.alderaan.util.TurnContext;
+import dev.uday.alderaan.util.WavFiles;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChatTurnService {
+
+    private final AiService aiService;
+    private final SpeechSynthesisService speechSynthesisService;
+    private final ChatService chatService;
+    private final Scheduler blockingScheduler;
+    private final AudioBlobStore audioBlobStore;
+
+    @Value("${speech.tts.stream.concurrency:2}")
+    private int ttsStreamConcurrency;
+
+    @Value("${speech.tts.stream.min-sentence-length:20}")
+    private int minSentenceLength;
+
+    public TurnResult speechTurn(ChatSession session, ChatMessage.MessageType userType, String prompt) {
+        return speechTurn(session, userType, prompt, null);
+    }
+
+    // userAudioKey is the stored upload the prompt was recognized from, if any
+    public TurnResult speechTurn(ChatSession session, ChatMessage.MessageType userType, String prompt, String userAudioKey) {
+        // History is loaded before the current prompt is saved, so the prompt appears only once
+        ChatHistory history = chatService.getRecentHistory(session);
+
+        String aiResponse = aiService.getTextResponseWithHistory(prompt, history);
+        byte[] audioData = speechSynthesisService.synthesizeSpeech(aiResponse);
+
+        // Kept so the reply can be replayed without synthesizing it again
+        String aiAudioKey = audioBlobStore.tryStore(audioData, "wav");
+        chatService.saveTurn(session, userType, prompt, userAudioKey,
+                ChatMessage.MessageType.AI_AUDIO, aiResponse, aiAudioKey);
+
+        return new TurnResult(aiResponse, audioData);
+    }
+
+    public Flux<TurnEvent> streamSpeechTurn(ChatSession session, ChatMessage.MessageType userType, String prompt) {
+        return streamSpeechTurn(session, userType, prompt, null);
+    }
+
+    public Flux<TurnEvent> streamSpeechTurn(ChatSession session, ChatMessage.MessageType userType, String prompt,
+                                            String userAudioKey) {
+        return Flux.deferContextual(context -> {
+            String endpoint = TurnContext.endpoint(context);
+            ChatHistory history = chatService.getRecentHistory(session);
+
+            // Read by whichever thread ends the turn, possibly while a cancelled stream is still winding down
+            StringBuffer aiResponse = new StringBuffer();
+            List<byte[]> audioSegments = Collections.synchronizedList(new ArrayList<>());
+            SentenceChunker chunker = new SentenceChunker(minSentenceLength);
+
+            // Both the token and the sentence branch must subscribe before generation starts
+            Flux<String> tokens = aiService.streamTextResponseWithHistory(prompt, history)
+                    .doOnNext(aiResponse::append)
+                    .publish()
+                    .autoConnect(2);
+
+            Flux<TurnEvent> tokenEvents = tokens.map(TurnEvent::token);
+
+            // Sentences are buffered so a busy TTS sidecar never throttles token delivery
+            Flux<TurnEvent> audioEvents = tokens
+                    .concatMapIterable(chunker::append)
+                    .concatWith(Mono.fromSupplier(chunker::flush).filter(sentence -> !sentence.isEmpty()))
+                    .onBackpressureBuffer()
+                    .index()
+                    .flatMapSequential(sentence -> synthesizeSentence(endpoint, sentence.getT1().intValue(), sentence.getT2()),
+                            ttsStreamConcurrency)
+                    .doOnNext(event -> audioSegments.add(event.getAudio()));
+
+            // Saved exactly once: before the done event on completion, or with whatever was produced when the
+            // client goes away or generation fails, so a dropped connection never loses the prompt
+            AtomicBoolean saved = new AtomicBoolean();
+            Runnable save = () -> {
+                if (saved.compareAndSet(false, true)) {
+                    saveStreamedTurn(session, userType, prompt, userAudioKey, aiResponse.toString(), audioSegments);
+                }
+            };
+
+            // Saving joins the audio, writes it to disk and queues the rows, so it leaves the thread that
+            // completed the stream, which may belong to the Ollama client
+            Mono<TurnEvent> done = Mono.fromSupplier(() -> {
+                save.run();
+                return TurnEvent.done(aiResponse.toString());
+            }).subscribeOn(blockingScheduler);
+
+            return Flux.merge(tokenEvents, audioEvents)
+                    .concatWith(done)
+                    .doFinally(signal -> {
+                        // Cancellation arrives on the transport's thread, which must not block on storage
+                        if (!saved.get()) {
+                            blockingScheduler.schedule(save);
+                        }
+                    });
+        });
+    }
+
+    private void saveStreamedTurn(ChatSession session, ChatMessage.MessageType userType, String prompt, String userAudioKey,
+                                  String text, List<byte[]> audioSegments) {
+        if (text.isEmpty()) {
+            // Nothing was generated, but the prompt still belongs in the conversation
+            chatService.saveAudioMessage(session, userType, prompt, userAudioKey);
+            return;
+        }
+        // Segments arrive in sentence order, so joined they are the whole spoken reply
+        List<byte[]> segments;
+        synchronized (audioSegments) {
+            segments = List.copyOf(audioSegments);
+        }
+        String aiAudioKey = audioBlobStore.tryStore(WavFiles.concat(segments), "wav");
+        chatService.saveTurn(session, userType, prompt, userAudioKey, ChatMessage.MessageType.AI_AUDIO, text, aiAudioKey);
+    }
+
+    private Mono<TurnEvent> synthesizeSentence(String endpoint, int index, String sentence) {
+        return Mono.fromCallable(TurnContext.withEndpoint(endpoint, () -> speechSynthesisService.synthesizeSentence(sentence)))
+                .subscribeOn(blockingScheduler)
+                .filter(audio -> audio.length > 0)
+                .map(audio -> TurnEvent.audio(index, sentence, audio))
+                // A saturated TTS backend drops this sentence's audio but keeps the text stream going
+                .onErrorResume(BackendUnavailableException.class, e -> {
+                    log.warn("Skipping audio for sentence {}: {}", index, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,120 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.HistoryMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+// Folds messages that slid out of the prompt window into the session's rolling summary, in the background
+@Service
+@Slf4j
+public class ConversationSummarizer {
+
+    private final ChatClient chatClient;
+    private final ChatService chatService;
+    private final BackendGuards backendGuards;
+    private final TaskExecutor historySummaryExecutor;
+
+    private final Set<Long> summarizing = ConcurrentHashMap.newKeySet();
+
+    @Value("${chat.history.summary.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.history.summary.batch-messages:6}")
+    private int batchMessages;
+
+    @Value("${chat.history.summary.max-words:150}")
+    private int maxWords;
+
+    public ConversationSummarizer(OllamaChatModel chatModel, ChatService chatService, BackendGuards backendGuards,
+                                  @Qualifier("historySummaryExecutor") TaskExecutor historySummaryExecutor) {
+        this.chatClient = ChatClient.create(chatModel);
+        this.chatService = chatService;
+        this.backendGuards = backendGuards;
+        this.historySummaryExecutor = historySummaryExecutor;
+    }
+
+    // Messages wait outside the window until a batch has built up, so each summarization call covers several
+    public int getBatchMessages() {
+        return enabled ? batchMessages : 0;
+    }
+
+    public void windowSlid(ChatHistory history, Long lastDroppedId, int droppedMessages) {
+        Long sessionId = history.getSessionId();
+        if (!enabled || sessionId == null || droppedMessages < batchMessages || !summarizing.add(sessionId)) {
+            return;
+        }
+
+        try {
+            historySummaryExecutor.execute(() -> {
+                try {
+                    summarize(history, lastDroppedId);
+                } catch (Exception e) {
+                    log.warn("Failed to summarize history for session: {}", sessionId, e);
+                } finally {
+                    summarizing.remove(sessionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full: the task never runs, so release the session for the next slide to resubmit
+            summarizing.remove(sessionId);
+            log.debug("Summary queue full, deferring session: {}", sessionId);
+        }
+    }
+
+    private void summarize(ChatHistory history, Long upToId) throws Exception {
+        // Read from the database so messages already evicted from the history cache are not lost
+        List<HistoryMessage> messages = chatService.getHistoryRange(history.getSessionId(),
+                history.getSummarizedUpToId(), upToId);
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        String prompt = buildSummaryPrompt(history.getSummary(), messages);
+        String summary = backendGuards.getOllama().call(() -> chatClient
+                .prompt(prompt)
+                .call()
+                .content());
+        if (summary == null || summary.isBlank()) {
+            return;
+        }
+
+        chatService.updateSummary(history.getSessionId(), summary.trim(), upToId);
+        log.debug("Summarized {} messages of session: {} in {} ms", messages.size(), history.getSessionId(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private String buildSummaryPrompt(String previousSummary, List<HistoryMessage> messages) {
+        StringBuilder promptBuilder = new StringBuilder();
+        promptBuilder.append("Update the summary of a conversation between a user and an assistant. ")
+                .append("Keep names, facts, preferences and open questions the assistant may need later. ")
+                .append("Answer with the summary only, in at most ").append(maxWords).append(" words.\n\n");
+
+        if (previousSummary != null && !previousSummary.isBlank()) {
+            promptBuilder.append("Current summary: ").append(previousSummary).append("\n\n");
+        }
+
+        promptBuilder.append("New messages:\n");
+        for (HistoryMessage message : messages) {
+            if (message.fromUser()) {
+                promptBuilder.append("User: ").append(message.getContent()).append("\n");
+            } else if (message.fromAssistant()) {
+                promptBuilder.append("Assistant: ").append(message.getContent()).append("\n");
+            }
+        }
+        promptBuilder.append("\nUpdated summary:");
+
+        return promptBuilder.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package dev.uday.alderaan.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import dev.uday.alderaan.util.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+// Exact-match cache in front of blocking LLM calls. Identical prompts in flight at the same time share one
+// generation, and finished answers are kept for a short while so retries and canned prompts skip inference.
+@Component
+@Slf4j
+public class LlmResponseCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Duration MAX_FOLLOWER_WAIT = Duration.ofMinutes(2);
+
+    private final boolean enabled;
+    private final Cache<String, String> responses;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    // Model name and sampling options are the same for every call, so they are folded into the key once
+    private final String modelFingerprint;
+
+    public LlmResponseCache(OllamaChatModel chatModel, MeterRegistry meterRegistry,
+                            @Value("${ai.response-cache.enabled:true}") boolean enabled,
+                            @Value("${ai.response-cache.max-bytes:16777216}") long maxBytes,
+                            @Value("${ai.response-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, String response) -> key.length() + response.length() * 2)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "llm-response");
+        this.modelFingerprint = ModelOptionsUtils.toJsonString(chatModel.getDefaultOptions());
+    }
+
+    public String getOrGenerate(Prompt prompt, Callable<String> generator) throws Exception {
+        if (!enabled) {
+            return generator.call();
+        }
+
+        String key = key(prompt);
+        while (true) {
+            String cached = responses.getIfPresent(key);
+            if (cached != null) {
+                log.debug("Response cache hit for prompt key: {}", key);
+                return cached;
+            }
+
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            CompletableFuture<String> existing = inFlight.putIfAbsent(key, pending);
+            if (existing == null) {
+                return generate(key, pending, generator);
+            }
+
+            try {
+                return await(existing);
+            } catch (CancellationException e) {
+                // The request that was generating gave up; take over instead of failing with it
+                log.debug("In-flight generation for prompt key: {} was cancelled, retrying", key);
+            }
+        }
+    }
+
+    private String generate(String key, CompletableFuture<String> pending, Callable<String> generator) throws Exception {
+        try {
+            String response = generator.call();
+            if (response != null && !response.isBlank()) {
+                responses.put(key, response);
+            }
+            pending.complete(response);
+            return response;
+        } catch (Exception e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    private String await(CompletableFuture<String> existing) throws Exception {
+        Duration wait = Deadline.remaining(MAX_FOLLOWER_WAIT);
+        try {
+            return existing.get(Math.max(1, wait.toNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new BackendUnavailableException("ollama", HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1),
+                    "Timed out waiting for an identical request to ollama");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    // Whitespace and Unicode normalization only: case and punctuation can change the answer
+    private String key(Prompt prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelFingerprint.getBytes(StandardCharsets.UTF_8));
+            for (Message message : prompt.getInstructions()) {
+                digest.update((byte) 0);
+                digest.update(message.getMessageType().getValue().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(normalize(message.getText()).getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").trim();
+    }
+}
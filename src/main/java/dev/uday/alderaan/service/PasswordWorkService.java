@@ -0,0 +1,48 @@
+package dev.uday.alderaan.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+public class PasswordWorkService {
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordWorkService(@Value("${security.password-hashing.pool-size:0}") int poolSize,
+                               @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity) {
+        // BCrypt is CPU bound, so by default use at most half of the cores and leave the rest for chat traffic
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+
+        // A full queue rejects immediately instead of parking more callers behind the hashing backlog
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.debug("Password hashing pool started with {} threads and queue capacity {}", threads, queueCapacity);
+    }
+
+    // Throws RejectedExecutionException when the pool and its queue are full
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
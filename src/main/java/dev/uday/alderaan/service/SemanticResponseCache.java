@@ -0,0 +1,103 @@
+package dev.uday.alderaan.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.uday.alderaan.util.HnswIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Answers a stateless prompt from an earlier answer to a semantically equivalent prompt. Prompts are embedded
+// with whichever EmbeddingModel is configured and looked up in an in-process HNSW index; entries are bounded
+// by memory and age, and evicted entries are tombstoned in the index until it is compacted.
+@Component
+@Slf4j
+public class SemanticResponseCache {
+
+    private static final int SEARCH_EF = 32;
+
+    private final ObjectProvider<EmbeddingModel> embeddingModels;
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final Cache<Long, Entry> entries;
+    private final HnswIndex index;
+    private final AtomicLong ids = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public SemanticResponseCache(ObjectProvider<EmbeddingModel> embeddingModels, MeterRegistry meterRegistry,
+                                 @Value("${ai.semantic-cache.enabled:false}") boolean enabled,
+                                 @Value("${ai.semantic-cache.similarity-threshold:0.92}") double similarityThreshold,
+                                 @Value("${ai.semantic-cache.max-memory-bytes:33554432}") long maxMemoryBytes,
+                                 @Value("${ai.semantic-cache.ttl-minutes:60}") long ttlMinutes,
+                                 @Value("${ai.semantic-cache.hnsw.max-neighbors:16}") int maxNeighbors,
+                                 @Value("${ai.semantic-cache.hnsw.ef-construction:100}") int efConstruction) {
+        this.embeddingModels = embeddingModels;
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.index = new HnswIndex(maxNeighbors, efConstruction);
+        // Weighed by the vector plus its graph links and the stored texts, so the index is bounded too
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryBytes)
+                .weigher((Long id, Entry entry) -> entry.dimensions * 4 + maxNeighbors * 2 * 8
+                        + (entry.prompt.length() + entry.response.length()) * 2)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .removalListener((Long id, Entry entry, RemovalCause cause) -> onRemoval(id))
+                .build();
+        this.hits = meterRegistry.counter("alderaan.semantic.cache", "result", "hit");
+        this.misses = meterRegistry.counter("alderaan.semantic.cache", "result", "miss");
+        Gauge.builder("alderaan.semantic.cache.size", index, HnswIndex::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled && embeddingModels.getIfUnique() != null;
+    }
+
+    // Embeds the prompt once; the same embedding is reused to store the answer on a miss
+    public Lookup lookup(String prompt) {
+        float[] vector = embeddingModels.getObject().embed(prompt);
+        List<HnswIndex.Match> matches = index.search(vector, 1, SEARCH_EF);
+        if (!matches.isEmpty() && matches.get(0).similarity() >= similarityThreshold) {
+            Entry entry = entries.getIfPresent(matches.get(0).id());
+            if (entry != null) {
+                hits.increment();
+                log.debug("Semantic cache hit ({}) for prompt: {} matched: {}", matches.get(0).similarity(), prompt, entry.prompt);
+                return new Lookup(vector, Optional.of(entry.response));
+            }
+        }
+        misses.increment();
+        return new Lookup(vector, Optional.empty());
+    }
+
+    public void put(String prompt, Lookup lookup, String response) {
+        long id = ids.incrementAndGet();
+        index.add(id, lookup.vector);
+        entries.put(id, new Entry(prompt, response, lookup.vector.length));
+    }
+
+    private void onRemoval(Long id) {
+        index.remove(id);
+        // Tombstones still cost memory and search time; rebuild once they outnumber live entries
+        if (index.tombstones() > Math.max(64, index.size())) {
+            log.debug("Compacting semantic cache index with {} tombstones", index.tombstones());
+            index.compact();
+        }
+    }
+
+    public record Lookup(float[] vector, Optional<String> response) {
+    }
+
+    private record Entry(String prompt, String response, int dimensions) {
+    }
+}
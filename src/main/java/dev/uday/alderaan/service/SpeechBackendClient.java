@@ -0,0 +1,139 @@
+package dev.uday.alderaan.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+@Service
+@Slf4j
+public class SpeechBackendClient {
+
+    private final HttpClient httpClient;
+    private final List<Backend> backends;
+    private final int failureThreshold;
+
+    public SpeechBackendClient(@Value("${speech.backend.urls:http://127.0.0.1:5000}") List<String> urls,
+                               @Value("${speech.backend.failure-threshold:3}") int failureThreshold,
+                               ExecutorService turnExecutor) {
+        // Response handling runs on the turn executor, i.e. on virtual threads when they are enabled
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(turnExecutor)
+                .build();
+        this.backends = urls.stream()
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> new Backend(URI.create(url.endsWith("/") ? url.substring(0, url.length() - 1) : url)))
+                .toList();
+        this.failureThreshold = failureThreshold;
+
+        if (backends.isEmpty()) {
+            throw new IllegalStateException("At least one speech backend URL must be configured");
+        }
+        log.info("Speech backends: {}", backends.stream().map(backend -> backend.baseUri).toList());
+    }
+
+    public <T> HttpResponse<T> send(String path, UnaryOperator<HttpRequest.Builder> customizer,
+                                    HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        Backend backend = selectBackend();
+        HttpRequest request = customizer.apply(HttpRequest.newBuilder(backend.baseUri.resolve(path))).build();
+
+        backend.outstanding.incrementAndGet();
+        try {
+            HttpResponse<T> response = httpClient.send(request, bodyHandler);
+            if (response.statusCode() >= 500) {
+                backend.recordFailure();
+            } else {
+                backend.recordSuccess();
+            }
+            return response;
+        } catch (IOException e) {
+            backend.recordFailure();
+            throw e;
+        } finally {
+            backend.outstanding.decrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${speech.backend.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Backend backend : backends) {
+            HttpRequest request = HttpRequest.newBuilder(backend.baseUri.resolve("/health"))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    backend.markHealthy();
+                } else {
+                    backend.markUnhealthy();
+                }
+            } catch (IOException e) {
+                backend.markUnhealthy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Backend selectBackend() {
+        // Least outstanding requests among healthy instances; if all are ejected, fail open across every instance
+        Comparator<Backend> byLoad = Comparator.comparingInt(backend -> backend.outstanding.get());
+        return backends.stream()
+                .filter(backend -> backend.healthy)
+                .min(byLoad)
+                .orElseGet(() -> backends.stream().min(byLoad).orElseThrow());
+    }
+
+    private class Backend {
+        private final URI baseUri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile boolean healthy = true;
+
+        private Backend(URI baseUri) {
+            this.baseUri = baseUri;
+        }
+
+        private void recordSuccess() {
+            consecutiveFailures.set(0);
+        }
+
+        private void recordFailure() {
+            if (consecutiveFailures.incrementAndGet() >= failureThreshold && healthy) {
+                log.warn("Ejecting speech backend {} after {} consecutive failures", baseUri, failureThreshold);
+                healthy = false;
+            }
+        }
+
+        private void markHealthy() {
+            consecutiveFailures.set(0);
+            if (!healthy) {
+                log.info("Speech backend {} is healthy again", baseUri);
+                healthy = true;
+            }
+        }
+
+        private void markUnhealthy() {
+            if (healthy) {
+                log.warn("Ejecting speech backend {} after a failed health check", baseUri);
+                healthy = false;
+            }
+        }
+    }
+}
@@ -1,61 +1,69 @@
 package dev.uday.alderaan.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import dev.uday.alderaan.util.Deadline;
+import dev.uday.alderaan.util.MultipartBodyPublisher;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.file.Files;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 @Service
 @Slf4j
 public class SpeechRecognitionService {
 
-    private static final String STT_API_URL = "http://127.0.0.1:5000/stt";
-    private final HttpClient httpClient;
+    private static final String STT_API_PATH = "/stt";
+    private final SpeechBackendClient speechBackendClient;
     private final ObjectMapper objectMapper;
+    private final BackendGuards backendGuards;
+    private final TurnMetrics turnMetrics;
+    private final AudioTranscoder audioTranscoder;
+    private final Duration sttTimeout;
 
-    public SpeechRecognitionService(ObjectMapper objectMapper) {
-        this.httpClient = HttpClient.newHttpClient();
+    public SpeechRecognitionService(SpeechBackendClient speechBackendClient, ObjectMapper objectMapper,
+                                    BackendGuards backendGuards, TurnMetrics turnMetrics, AudioTranscoder audioTranscoder,
+                                    @Value("${speech.stt.timeout-ms:120000}") long sttTimeoutMs) {
+        this.speechBackendClient = speechBackendClient;
         this.objectMapper = objectMapper;
+        this.backendGuards = backendGuards;
+        this.turnMetrics = turnMetrics;
+        this.audioTranscoder = audioTranscoder;
+        this.sttTimeout = Duration.ofMillis(sttTimeoutMs);
     }
 
     public String recognizeSpeech(MultipartFile audioFile) {
-        try {
-            // Save MultipartFile to a temp file
-            var tempFile = Files.createTempFile("audio", ".wav");
-            audioFile.transferTo(tempFile);
-
-            // Build multipart/form-data request
-            String boundary = "----JavaMultipartBoundary" + System.currentTimeMillis();
-            var byteArray = Files.readAllBytes(tempFile);
-            String fileName = audioFile.getOriginalFilename();
+        return recognizeSpeech(audioFile::getInputStream, audioFile.getSize(), audioFile.getOriginalFilename());
+    }
 
-            String partHeader = "--" + boundary + "\r\n"
-                    + "Content-Disposition: form-data; name=\"audio\"; filename=\"" + fileName + "\"\r\n"
-                    + "Content-Type: audio/wav\r\n\r\n";
-            String partFooter = "\r\n--" + boundary + "--\r\n";
+    public String recognizeSpeech(byte[] audio, String fileName) {
+        return recognizeSpeech(() -> new ByteArrayInputStream(audio), audio.length, fileName);
+    }
 
-            byte[] body = concat(
-                    partHeader.getBytes(),
-                    byteArray,
-                    partFooter.getBytes()
-            );
+    private String recognizeSpeech(MultipartBodyPublisher.InputStreamSource upload, long uploadSize, String fileName) {
+        // Whisper resamples everything to 16 kHz mono anyway, so doing it here sends a fraction of the bytes
+        AudioTranscoder.NormalizedUpload normalized = normalize(upload);
+        MultipartBodyPublisher.InputStreamSource audio = normalized == null ? upload : normalized.audio();
+        long size = normalized == null ? uploadSize : normalized.size();
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(STT_API_URL))
-                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
-                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
-                    .build();
+        long start = System.nanoTime();
+        try {
+            // Build multipart/form-data request streamed straight from the audio
+            MultipartBodyPublisher multipart = new MultipartBodyPublisher();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            Files.deleteIfExists(tempFile);
+            HttpResponse<String> response = backendGuards.getStt().call(() -> checkStatus(
+                    speechBackendClient.send(STT_API_PATH, request -> request
+                                    .header("Content-Type", multipart.getContentType())
+                                    .POST(multipart.filePart("audio", fileName, "audio/wav", audio, size))
+                                    .timeout(Deadline.timeout(sttTimeout)),
+                            HttpResponse.BodyHandlers.ofString())));
 
             if (response.statusCode() == 200) {
                 Map<String, Object> result = objectMapper.readValue(response.body(), Map.class);
@@ -64,21 +72,31 @@ public class SpeechRecognitionService {
                 log.error("STT API failed: {}", response.body());
                 return "";
             }
-        } catch (IOException | InterruptedException e) {
+        } catch (BackendUnavailableException | CancellationException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("Error during speech recognition", e);
             return "";
+        } finally {
+            turnMetrics.record(TurnMetrics.STT, start);
+        }
+    }
+
+    // Anything the audio stage cannot read goes to the sidecar unchanged
+    private AudioTranscoder.NormalizedUpload normalize(MultipartBodyPublisher.InputStreamSource upload) {
+        try {
+            return audioTranscoder.normalizeForStt(upload);
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Sending upload to STT without normalizing it", e);
+            return null;
         }
     }
 
-    private static byte[] concat(byte[]... arrays) throws IOException {
-        int total = 0;
-        for (byte[] arr : arrays) total += arr.length;
-        byte[] result = new byte[total];
-        int pos = 0;
-        for (byte[] arr : arrays) {
-            System.arraycopy(arr, 0, result, pos, arr.length);
-            pos += arr.length;
+    // Server errors count against the STT circuit breaker
+    private static HttpResponse<String> checkStatus(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() >= 500) {
+            throw new IOException("STT API failed with status code: " + response.statusCode());
         }
-        return result;
+        return response;
     }
 }
\ No newline at end of file
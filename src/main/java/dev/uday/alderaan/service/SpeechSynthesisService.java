@@ -1,50 +1,244 @@
 package dev.uday.alderaan.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import dev.uday.alderaan.util.Deadline;
+import dev.uday.alderaan.util.MicroBatcher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Slf4j
 public class SpeechSynthesisService {
 
-    private static final String TTS_API_URL = "http://127.0.0.1:5000/tts";
-    private final HttpClient httpClient;
+    private static final String TTS_API_PATH = "/tts";
+    private static final String TTS_BATCH_API_PATH = "/tts/batch";
+    private static final Duration TTS_TIMEOUT = Duration.ofSeconds(60);
+    private final SpeechBackendClient speechBackendClient;
     private final ObjectMapper objectMapper;
+    private final TtsAudioCache audioCache;
+    private final BackendGuards backendGuards;
+    private final TurnMetrics turnMetrics;
 
-    public SpeechSynthesisService() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+    @Value("${speech.tts.speaker:}")
+    private String speaker;
+
+    @Value("${speech.tts.sample-rate:22050}")
+    private int sampleRate;
+
+    @Value("${speech.tts.batch.enabled:true}")
+    private boolean batchingEnabled;
+
+    @Value("${speech.tts.batch.window-ms:5}")
+    private long batchWindowMs;
+
+    @Value("${speech.tts.batch.max-size:8}")
+    private int batchMaxSize;
+
+    @Value("${speech.tts.batch.max-in-flight:4}")
+    private int batchMaxInFlight;
+
+    @Value("${speech.tts.batch.max-queued:32}")
+    private int batchMaxQueued;
+
+    private MicroBatcher<String, byte[]> batcher;
+
+    public SpeechSynthesisService(SpeechBackendClient speechBackendClient, TtsAudioCache audioCache,
+                                  BackendGuards backendGuards, TurnMetrics turnMetrics) {
+        this.speechBackendClient = speechBackendClient;
+        this.backendGuards = backendGuards;
+        this.turnMetrics = turnMetrics;
         this.objectMapper = new ObjectMapper();
+        this.audioCache = audioCache;
+    }
+
+    @PostConstruct
+    void init() {
+        if (batchingEnabled) {
+            this.batcher = new MicroBatcher<>("tts-batch", Duration.ofMillis(batchWindowMs), batchMaxSize,
+                    batchMaxInFlight, batchMaxQueued, this::requestBatchSynthesis);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
     }
 
     public byte[] synthesizeSpeech(String text) {
+        return synthesizeSpeech(text, true);
+    }
+
+    // A streamed reply's sentences skip the batcher: joining a batch means waiting out the window and then for
+    // the whole batch's inference, which delays the first audio the client hears
+    public byte[] synthesizeSentence(String sentence) {
+        return synthesizeSpeech(sentence, false);
+    }
+
+    private byte[] synthesizeSpeech(String text, boolean batched) {
+        TtsAudioCache.Clip clip = synthesizeClip(text, batched);
+        try {
+            return clip.file() == null ? clip.audio().clone() : clip.bytes();
+        } catch (IOException e) {
+            log.warn("Unable to read cached TTS audio: {}", clip.file(), e);
+            return new byte[0];
+        }
+    }
+
+    // Cached clips are returned without copying; callers must not modify the array
+    public TtsAudioCache.Clip synthesizeClip(String text) {
+        return synthesizeClip(text, true);
+    }
+
+    private TtsAudioCache.Clip synthesizeClip(String text, boolean batched) {
+        long start = System.nanoTime();
+        try {
+            String key = audioCache.key(text, speaker, sampleRate);
+            return audioCache.getOrSynthesize(key,
+                    () -> batched && batcher != null ? awaitBatched(text) : requestSynthesis(text));
+        } finally {
+            turnMetrics.record(TurnMetrics.TTS, start);
+        }
+    }
+
+    // Waits no longer than the request deadline, and gives up on the clip when the turn is cancelled
+    private byte[] awaitBatched(String text) {
+        CompletableFuture<byte[]> result;
+        try {
+            result = batcher.submit(text);
+        } catch (RejectedExecutionException e) {
+            throw new BackendUnavailableException("tts", HttpStatus.TOO_MANY_REQUESTS, Duration.ofSeconds(1),
+                    "Too many requests waiting for tts");
+        }
+
+        try {
+            Duration wait = Deadline.remaining(TTS_TIMEOUT);
+            return result.get(Math.max(1, wait.toNanos()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Batched speech synthesis cancelled");
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new BackendUnavailableException("tts", HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1),
+                    "Timed out waiting for tts");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BackendUnavailableException unavailable) {
+                throw unavailable;
+            }
+            log.error("Error during batched speech synthesis", e.getCause());
+            return new byte[0];
+        }
+    }
+
+    // Server errors count against the TTS circuit breaker
+    private static HttpResponse<byte[]> checkStatus(HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() >= 500) {
+            throw new IOException("TTS API failed with status code: " + response.statusCode());
+        }
+        return response;
+    }
+
+    private List<byte[]> requestBatchSynthesis(List<String> texts) {
+        // A lone request keeps the plain endpoint so it pays no batch encoding overhead
+        if (texts.size() == 1) {
+            return List.of(requestSynthesis(texts.get(0)));
+        }
+
+        log.debug("Synthesizing speech for a batch of {} texts", texts.size());
+
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("texts", texts);
+            if (!speaker.isEmpty()) {
+                payload.put("speaker", speaker);
+            }
+            String jsonPayload = objectMapper.writeValueAsString(payload);
+
+            HttpResponse<byte[]> response = backendGuards.getTts().call(() -> checkStatus(
+                    speechBackendClient.send(TTS_BATCH_API_PATH, request -> request
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
+                                    // The batcher sets the earliest deadline of the callers in the batch
+                                    .timeout(Deadline.timeout(TTS_TIMEOUT)),
+                            HttpResponse.BodyHandlers.ofByteArray())));
+
+            if (response.statusCode() == 200) {
+                return readClips(response.body(), texts.size());
+            } else {
+                log.error("TTS batch API failed with status code: {}", response.statusCode());
+                return texts.stream().map(text -> new byte[0]).toList();
+            }
+
+        } catch (BackendUnavailableException | CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error during batched speech synthesis", e);
+            return texts.stream().map(text -> new byte[0]).toList();
+        }
+    }
+
+    // The batch endpoint answers with each WAV clip in request order, prefixed by its big-endian length, so
+    // clips are sliced out of the body without base64 or a JSON tree
+    private static List<byte[]> readClips(byte[] body, int count) throws IOException {
+        ByteBuffer frames = ByteBuffer.wrap(body);
+        List<byte[]> clips = new ArrayList<>(count);
+        while (clips.size() < count) {
+            if (frames.remaining() < 4) {
+                throw new IOException("TTS batch response ended after " + clips.size() + " of " + count + " clips");
+            }
+            int length = frames.getInt();
+            if (length < 0 || length > frames.remaining()) {
+                throw new IOException("TTS batch response has a truncated clip");
+            }
+            byte[] clip = new byte[length];
+            frames.get(clip);
+            clips.add(clip);
+        }
+        return clips;
+    }
+
+    private byte[] requestSynthesis(String text) {
         log.debug("Synthesizing speech for text: {}", text);
 
         try {
             // Create JSON payload
-            String jsonPayload = objectMapper.writeValueAsString(Map.of("text", text));
-
-            // Create HTTP request
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(TTS_API_URL))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
-                    .timeout(Duration.ofSeconds(60))
-                    .build();
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("text", text);
+            if (!speaker.isEmpty()) {
+                payload.put("speaker", speaker);
+            }
+            String jsonPayload = objectMapper.writeValueAsString(payload);
 
-            // Send request and get response
-            HttpResponse<byte[]> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofByteArray());
+            // Send request to the least loaded sidecar and get response
+            HttpResponse<byte[]> response = backendGuards.getTts().call(() -> checkStatus(
+                    speechBackendClient.send(TTS_API_PATH, request -> request
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
+                                    .timeout(Deadline.timeout(TTS_TIMEOUT)),
+                            HttpResponse.BodyHandlers.ofByteArray())));
 
             if (response.statusCode() == 200) {
                 log.debug("Speech synthesis successful");
@@ -54,9 +248,11 @@ public class SpeechSynthesisService {
                 return new byte[0];
             }
 
-        } catch (IOException | InterruptedException e) {
+        } catch (BackendUnavailableException | CancellationException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("Error during speech synthesis", e);
             return new byte[0];
         }
     }
-}
\ No newline at end of file
+}
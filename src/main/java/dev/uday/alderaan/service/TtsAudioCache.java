@@ -0,0 +1,260 @@
+package dev.uday.alderaan.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import dev.uday.alderaan.util.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class TtsAudioCache {
+
+    private static final Duration MAX_FOLLOWER_WAIT = Duration.ofSeconds(60);
+
+    private final Cache<String, byte[]> heapTier;
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final Path diskDirectory;
+    private final long maxDiskBytes;
+    // Larger clips are served from their file rather than copied onto the heap
+    private final long maxPromotedBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    // A cached clip: held on the heap, or a file in the disk tier for clips too large to promote
+    public record Clip(byte[] audio, Path file, long length) {
+
+        static Clip of(byte[] audio) {
+            return new Clip(audio, null, audio.length);
+        }
+
+        // Heap clips return the cached array itself, which callers must not modify
+        public byte[] bytes() throws IOException {
+            return audio != null ? audio : Files.readAllBytes(file);
+        }
+    }
+
+    public TtsAudioCache(MeterRegistry meterRegistry,
+                         @Value("${speech.tts.cache.max-heap-bytes:67108864}") long maxHeapBytes,
+                         @Value("${speech.tts.cache.dir:${java.io.tmpdir}/alderaan/tts-cache}") String diskDirectory,
+                         @Value("${speech.tts.cache.max-disk-bytes:1073741824}") long maxDiskBytes) throws IOException {
+        this.heapTier = Caffeine.newBuilder()
+                .maximumWeight(maxHeapBytes)
+                .weigher((String key, byte[] audio) -> audio.length)
+                // A clip leaving the heap was in use until now, so the disk tier must not treat it as old
+                .removalListener((String key, byte[] audio, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        touch(pathFor(key));
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, heapTier, "tts-audio");
+
+        this.diskDirectory = Files.createDirectories(Path.of(diskDirectory));
+        this.maxDiskBytes = maxDiskBytes;
+        this.maxPromotedBytes = maxHeapBytes / 8;
+        try (Stream<Path> files = Files.walk(this.diskDirectory)) {
+            diskBytes.set(files.filter(Files::isRegularFile).mapToLong(this::sizeOf).sum());
+        }
+        log.debug("TTS audio cache at {} holds {} bytes on disk", this.diskDirectory, diskBytes.get());
+    }
+
+    public String key(String text, String speaker, int sampleRate) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(speaker.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(sampleRate).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Heap hits return the cached array, disk hits are promoted to the heap unless they are too large, in which
+    // case the clip is returned as its file so it can be sent without reading it into memory
+    public Clip getOrSynthesize(String key, Supplier<byte[]> synthesizer) {
+        while (true) {
+            byte[] hot = heapTier.getIfPresent(key);
+            if (hot != null) {
+                return Clip.of(hot);
+            }
+
+            Clip fromDisk = readFromDisk(key);
+            if (fromDisk != null) {
+                return fromDisk;
+            }
+
+            // Concurrent requests for the same clip share a single synthesis
+            CompletableFuture<byte[]> pending = new CompletableFuture<>();
+            CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, pending);
+            if (existing == null) {
+                return Clip.of(synthesize(key, pending, synthesizer));
+            }
+
+            try {
+                return Clip.of(await(existing));
+            } catch (CancellationException e) {
+                // The request that was synthesizing gave up; take over instead of failing with it
+                log.debug("In-flight synthesis for TTS key: {} was cancelled, retrying", key);
+            }
+        }
+    }
+
+    private byte[] synthesize(String key, CompletableFuture<byte[]> pending, Supplier<byte[]> synthesizer) {
+        try {
+            byte[] audio = synthesizer.get();
+            // Failed syntheses come back empty and are never cached
+            if (audio.length > 0) {
+                heapTier.put(key, audio);
+                writeToDisk(key, audio);
+            }
+            pending.complete(audio);
+            return audio;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    // The shared synthesis is not cancelled on the follower's behalf: the leader and other followers still want it
+    private static byte[] await(CompletableFuture<byte[]> existing) {
+        Duration wait = Deadline.remaining(MAX_FOLLOWER_WAIT);
+        try {
+            return existing.get(Math.max(1, wait.toNanos()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for an identical TTS request");
+        } catch (TimeoutException e) {
+            throw new BackendUnavailableException("tts", HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1),
+                    "Timed out waiting for an identical request to tts");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Clip readFromDisk(String key) {
+        Path path = pathFor(key);
+        try {
+            long size = Files.size(path);
+            // The modification time is the disk tier's recency, so trimming evicts the least recently used clips.
+            // Touching it also keeps a large clip from being trimmed while its file is being sent.
+            touch(path);
+            if (size > maxPromotedBytes) {
+                return new Clip(null, path, size);
+            }
+            byte[] audio = Files.readAllBytes(path);
+            heapTier.put(key, audio);
+            return Clip.of(audio);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read cached TTS audio: {}", path, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] audio) {
+        Path path = pathFor(key);
+        try {
+            Files.createDirectories(path.getParent());
+            // Write beside the target and move into place so readers never see a partial file
+            Path temp = Files.createTempFile(path.getParent(), key, ".tmp");
+            Files.write(temp, audio);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (diskBytes.addAndGet(audio.length) > maxDiskBytes) {
+                trimDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Unable to write TTS audio to disk cache: {}", path, e);
+        }
+    }
+
+    private synchronized void trimDisk() {
+        long target = maxDiskBytes * 9 / 10;
+        if (diskBytes.get() <= target) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(diskDirectory)) {
+            List<Path> leastRecentFirst = files.filter(path -> path.toString().endsWith(".wav"))
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .toList();
+            for (Path path : leastRecentFirst) {
+                if (diskBytes.get() <= target) {
+                    break;
+                }
+                long size = sizeOf(path);
+                if (Files.deleteIfExists(path)) {
+                    diskBytes.addAndGet(-size);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to trim TTS disk cache", e);
+        }
+    }
+
+    private Path pathFor(String key) {
+        return diskDirectory.resolve(key.substring(0, 2)).resolve(key + ".wav");
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // Trimmed in the meantime
+        } catch (IOException e) {
+            log.debug("Unable to touch cached TTS audio: {}", path, e);
+        }
+    }
+}
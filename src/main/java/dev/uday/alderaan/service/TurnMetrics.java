@@ -0,0 +1,57 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.util.TurnContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Per-stage latency of chat and voice turns, published as percentile histograms so p99 can be
+// broken down into Whisper, Ollama, Postgres and the TTS sidecar
+@Component
+public class TurnMetrics {
+
+    public static final String STT = "stt";
+    public static final String AUDIO_TRANSCODE = "audio_transcode";
+    public static final String HISTORY_LOAD = "history_load";
+    public static final String PROMPT_BUILD = "prompt_build";
+    public static final String LLM_FIRST_TOKEN = "llm_first_token";
+    public static final String LLM_TOTAL = "llm_total";
+    public static final String TTS = "tts";
+    public static final String DB_WRITE = "db_write";
+
+    private static final String METRIC_NAME = "alderaan.turn.stage";
+
+    private final MeterRegistry meterRegistry;
+    private final String model;
+
+    public TurnMetrics(MeterRegistry meterRegistry,
+                       @Value("${spring.ai.ollama.chat.model:unknown}") String model) {
+        this.meterRegistry = meterRegistry;
+        this.model = model;
+    }
+
+    public void record(String stage, long startNanos) {
+        record(stage, TurnContext.endpoint(), startNanos);
+    }
+
+    public void record(String stage, String endpoint, long startNanos) {
+        timer(stage, endpoint).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String stage, String endpoint) {
+        // Meters are cached by the registry, so building one per recording only costs a lookup
+        return Timer.builder(METRIC_NAME)
+                .description("Time spent in each stage of a chat or voice turn")
+                .tag("stage", stage)
+                .tag("endpoint", endpoint)
+                .tag("model", model)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,108 @@
+package dev.uday.alderaan.util;
+
+// Encoders for the compact WAV formats replies can be sent in: G.711 μ-law (8 bits per sample) and
+// IMA ADPCM (4 bits per sample). Both take 16-bit mono samples.
+public final class AudioCodecs {
+
+    private static final int[] IMA_STEPS = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45, 50, 55, 60, 66, 73, 80, 88, 97,
+            107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307, 337, 371, 408, 449, 494, 544, 598, 658, 724,
+            796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066, 2272, 2499, 2749, 3024, 3327, 3660, 4026,
+            4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899, 15289, 16818, 18500,
+            20350, 22385, 24623, 27086, 29794, 32767};
+    private static final int[] IMA_INDEX_ADJUST = {-1, -1, -1, -1, 2, 4, 6, 8};
+
+    private static final int MULAW_BIAS = 0x84;
+    private static final int MULAW_CLIP = 32635;
+
+    private AudioCodecs() {
+    }
+
+    public static byte[] muLaw(short[] samples) {
+        byte[] encoded = new byte[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            encoded[i] = muLaw(samples[i]);
+        }
+        return encoded;
+    }
+
+    // Samples per block of mono IMA ADPCM: the header holds one sample, every byte after it two more
+    public static int imaSamplesPerBlock(int blockAlign) {
+        return (blockAlign - 4) * 2 + 1;
+    }
+
+    // Mono blocks as laid out in WAV files; the last block is padded with silence
+    public static byte[] imaAdpcm(short[] samples, int blockAlign) {
+        int samplesPerBlock = imaSamplesPerBlock(blockAlign);
+        int blocks = (samples.length + samplesPerBlock - 1) / samplesPerBlock;
+        byte[] encoded = new byte[blocks * blockAlign];
+
+        int index = 0;
+        for (int block = 0; block < blocks; block++) {
+            int in = block * samplesPerBlock;
+            int out = block * blockAlign;
+
+            // Each block restarts from an exact sample, so decoding errors never carry across blocks
+            int predictor = samples[in];
+            encoded[out] = (byte) predictor;
+            encoded[out + 1] = (byte) (predictor >> 8);
+            encoded[out + 2] = (byte) index;
+            encoded[out + 3] = 0;
+
+            for (int i = 1; i < samplesPerBlock; i++) {
+                int sample = in + i < samples.length ? samples[in + i] : 0;
+                int diff = sample - predictor;
+                int nibble = 0;
+                if (diff < 0) {
+                    nibble = 8;
+                    diff = -diff;
+                }
+
+                // Quantize to three bits of the current step, tracking what the decoder will reconstruct
+                int step = IMA_STEPS[index];
+                int delta = step >> 3;
+                if (diff >= step) {
+                    nibble |= 4;
+                    diff -= step;
+                    delta += step;
+                }
+                step >>= 1;
+                if (diff >= step) {
+                    nibble |= 2;
+                    diff -= step;
+                    delta += step;
+                }
+                step >>= 1;
+                if (diff >= step) {
+                    nibble |= 1;
+                    delta += step;
+                }
+
+                predictor += (nibble & 8) != 0 ? -delta : delta;
+                predictor = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+                index = Math.max(0, Math.min(IMA_STEPS.length - 1, index + IMA_INDEX_ADJUST[nibble & 7]));
+
+                // Two samples per byte, the earlier one in the low nibble
+                int position = out + 4 + (i - 1) / 2;
+                encoded[position] |= (byte) ((i & 1) == 1 ? nibble : nibble << 4);
+            }
+        }
+        return encoded;
+    }
+
+    private static byte muLaw(short sample) {
+        int pcm = sample;
+        int sign = pcm < 0 ? 0x80 : 0;
+        if (sign != 0) {
+            pcm = -pcm;
+        }
+        pcm = Math.min(pcm, MULAW_CLIP) + MULAW_BIAS;
+
+        int exponent = 7;
+        for (int mask = 0x4000; (pcm & mask) == 0 && exponent > 0; mask >>= 1) {
+            exponent--;
+        }
+        int mantissa = (pcm >> (exponent + 3)) & 0x0F;
+        return (byte) ~(sign | (exponent << 4) | mantissa);
+    }
+}
@@ -0,0 +1,26 @@
+package dev.uday.alderaan.util;
+
+import java.util.Locale;
+import java.util.Optional;
+
+// Encodings a client can ask spoken replies to be sent in. All of them are WAV files; the compact ones are mono
+// at a reduced sample rate.
+public enum AudioEncoding {
+    // Whatever the TTS sidecar produced
+    WAV,
+    // G.711 μ-law, 8 bits per sample
+    MULAW,
+    // IMA ADPCM, 4 bits per sample
+    ADPCM;
+
+    public static Optional<AudioEncoding> parse(String value) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
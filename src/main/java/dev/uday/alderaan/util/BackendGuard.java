@@ -0,0 +1,185 @@
+package dev.uday.alderaan.util;
+
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Bulkhead with a bounded wait queue plus a consecutive-failure circuit breaker for one backend
+@Slf4j
+public class BackendGuard {
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final Duration maxWait;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private State state = State.CLOSED;
+    private Instant openedAt = Instant.MIN;
+
+    public BackendGuard(String name, int maxConcurrent, int maxWaiting, Duration maxWait,
+                        int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaiting = maxWaiting;
+        this.maxWait = maxWait;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public <T> T call(Callable<T> work) throws Exception {
+        boolean probe = acquire();
+        try {
+            T result = work.call();
+            recordSuccess();
+            return result;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                // The caller gave up on the request; that says nothing about the backend
+                if (probe) {
+                    releaseProbe();
+                }
+                Thread.currentThread().interrupt();
+                CancellationException cancelled = new CancellationException("Call to " + name + " cancelled");
+                cancelled.initCause(e);
+                throw cancelled;
+            }
+            recordFailure();
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    // The permit is held from subscription until the stream terminates or is cancelled
+    public <T> Flux<T> stream(Flux<T> work) {
+        return Flux.using(
+                this::acquire,
+                probe -> work.doFinally(signal -> {
+                    switch (signal) {
+                        case ON_COMPLETE -> recordSuccess();
+                        case ON_ERROR -> recordFailure();
+                        // A client cancelling mid-stream says nothing about the backend either way
+                        default -> {
+                            if (probe) {
+                                releaseProbe();
+                            }
+                        }
+                    }
+                }),
+                probe -> permits.release());
+    }
+
+    // Returns whether this call is the single trial request of a half-open circuit
+    private boolean acquire() {
+        if (!Deadline.remaining(maxWait).isPositive()) {
+            throw new BackendUnavailableException(name, HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1),
+                    "Request deadline exceeded before calling " + name);
+        }
+
+        // Shed immediately while the circuit is open instead of queueing for a permit
+        rejectIfOpen();
+        acquirePermit();
+        try {
+            return checkCircuit();
+        } catch (BackendUnavailableException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw new BackendUnavailableException(name, HttpStatus.TOO_MANY_REQUESTS, Duration.ofSeconds(1),
+                    "Too many requests waiting for " + name);
+        }
+
+        try {
+            // Never wait past the caller's own deadline
+            Duration wait = Deadline.remaining(maxWait);
+            if (!wait.isPositive() || !permits.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new BackendUnavailableException(name, HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1),
+                        "Timed out waiting for " + name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BackendUnavailableException(name, HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1),
+                    "Interrupted waiting for " + name);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private synchronized void rejectIfOpen() {
+        if (state == State.OPEN) {
+            Duration sinceOpened = Duration.between(openedAt, Instant.now());
+            if (sinceOpened.compareTo(openDuration) < 0) {
+                throw new BackendUnavailableException(name, HttpStatus.SERVICE_UNAVAILABLE,
+                        openDuration.minus(sinceOpened), name + " is unavailable");
+            }
+        }
+    }
+
+    private synchronized boolean checkCircuit() {
+        if (state == State.OPEN) {
+            Duration sinceOpened = Duration.between(openedAt, Instant.now());
+            if (sinceOpened.compareTo(openDuration) < 0) {
+                throw new BackendUnavailableException(name, HttpStatus.SERVICE_UNAVAILABLE,
+                        openDuration.minus(sinceOpened), name + " is unavailable");
+            }
+            // Let a single trial request through to probe the backend
+            state = State.HALF_OPEN;
+            return true;
+        } else if (state == State.HALF_OPEN) {
+            throw new BackendUnavailableException(name, HttpStatus.SERVICE_UNAVAILABLE, Duration.ofSeconds(1),
+                    name + " is recovering");
+        }
+        return false;
+    }
+
+    // A cancelled trial request proved nothing; reopen with the original openedAt so the next call probes again
+    private synchronized void releaseProbe() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            log.info("Circuit for {} closed", name);
+            state = State.CLOSED;
+        }
+    }
+
+    private synchronized void recordFailure() {
+        if (state == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Circuit for {} opened after {} consecutive failures", name, consecutiveFailures.get());
+            }
+            state = State.OPEN;
+            openedAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package dev.uday.alderaan.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+
+// The deadline of the request being served on the current thread, set by RequestDeadlineFilter
+public final class Deadline {
+
+    private static final ThreadLocal<Instant> CURRENT = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    public static void set(Instant deadline) {
+        CURRENT.set(deadline);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static Instant current() {
+        return CURRENT.get();
+    }
+
+    // Carries the caller's deadline onto whichever thread ends up running the task
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Instant deadline = CURRENT.get();
+        return () -> {
+            Instant previous = CURRENT.get();
+            CURRENT.set(deadline);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    // Time left before the deadline, capped at the given limit; threads without a deadline get the limit
+    public static Duration remaining(Duration limit) {
+        Instant deadline = CURRENT.get();
+        if (deadline == null) {
+            return limit;
+        }
+        Duration remaining = Duration.between(Instant.now(), deadline);
+        return remaining.compareTo(limit) < 0 ? remaining : limit;
+    }
+
+    // A request timeout for an outbound call; always positive so it can be handed to HTTP clients
+    public static Duration timeout(Duration limit) {
+        Duration remaining = remaining(limit);
+        return remaining.compareTo(Duration.ofMillis(1)) < 0 ? Duration.ofMillis(1) : remaining;
+    }
+}
@@ -0,0 +1,49 @@
+package dev.uday.alderaan.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Writes a byte range of a file as the response body. Headers must already be set.
+public final class FileResponses {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileResponses() {
+    }
+
+    // Tomcat copies the file to the socket itself with sendfile once the request returns, so the bytes never
+    // enter the JVM. Other containers get a transferTo into the response stream, which goes through a small
+    // buffer but never holds the file in memory. end is exclusive.
+    public static void send(Path path, long start, long end, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long written = file.transferTo(position, end - position, out);
+                if (written <= 0) {
+                    throw new EOFException(path.getFileName() + " is shorter than expected");
+                }
+                position += written;
+            }
+        }
+    }
+}
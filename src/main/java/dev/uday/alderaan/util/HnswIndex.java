@@ -0,0 +1,274 @@
+package dev.uday.alderaan.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Approximate nearest-neighbour index over unit vectors (Hierarchical Navigable Small World graph, cosine
+// similarity). Removal leaves a tombstone that still routes searches but is never returned; compact()
+// rebuilds the graph from the live vectors once tombstones pile up.
+public class HnswIndex {
+
+    public record Match(long id, float similarity) {
+    }
+
+    private final int maxNeighbors;
+    private final int maxNeighborsBase;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private Node entryPoint;
+    private int tombstones;
+
+    public HnswIndex(int maxNeighbors, int efConstruction) {
+        this.maxNeighbors = maxNeighbors;
+        this.maxNeighborsBase = maxNeighbors * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxNeighbors);
+    }
+
+    // Ids must not be reused
+    public void add(long id, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            insert(new Node(id, normalize(vector), randomLevel()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Node node = nodes.get(id);
+            if (node != null && !node.deleted) {
+                node.deleted = true;
+                tombstones++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Match> search(float[] vector, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint == null) {
+                return List.of();
+            }
+
+            float[] query = normalize(vector);
+            Node current = entryPoint;
+            for (int level = entryPoint.level; level > 0; level--) {
+                current = greedyClosest(query, current, level);
+            }
+
+            // Tombstones take up slots in the candidate list, so widen it by their share of the graph
+            int width = Math.max(ef, k) * nodes.size() / Math.max(1, nodes.size() - tombstones);
+            List<Match> matches = new ArrayList<>(k);
+            for (Node node : searchLayer(query, current, width, 0)) {
+                if (!node.deleted) {
+                    matches.add(new Match(node.id, dot(query, node.vector)));
+                    if (matches.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size() - tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tombstones() {
+        lock.readLock().lock();
+        try {
+            return tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            List<Node> live = nodes.values().stream().filter(node -> !node.deleted).toList();
+            nodes.clear();
+            entryPoint = null;
+            tombstones = 0;
+            for (Node node : live) {
+                insert(new Node(node.id, node.vector, node.level));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(Node node) {
+        nodes.put(node.id, node);
+        if (entryPoint == null) {
+            entryPoint = node;
+            return;
+        }
+
+        Node current = entryPoint;
+        for (int level = entryPoint.level; level > node.level; level--) {
+            current = greedyClosest(node.vector, current, level);
+        }
+
+        for (int level = Math.min(node.level, entryPoint.level); level >= 0; level--) {
+            List<Node> candidates = searchLayer(node.vector, current, efConstruction, level);
+            int limit = level == 0 ? maxNeighborsBase : maxNeighbors;
+            for (Node neighbor : candidates.subList(0, Math.min(maxNeighbors, candidates.size()))) {
+                node.neighbors.get(level).add(neighbor);
+                List<Node> back = neighbor.neighbors.get(level);
+                back.add(node);
+                if (back.size() > limit) {
+                    // Links are added one at a time, so dropping the weakest keeps the neighbour's closest ones
+                    back.remove(weakestLink(neighbor, back));
+                }
+            }
+            current = candidates.get(0);
+        }
+
+        if (node.level > entryPoint.level) {
+            entryPoint = node;
+        }
+    }
+
+    private static int weakestLink(Node node, List<Node> links) {
+        int weakest = 0;
+        float lowest = Float.MAX_VALUE;
+        for (int i = 0; i < links.size(); i++) {
+            float similarity = dot(node.vector, links.get(i).vector);
+            if (similarity < lowest) {
+                lowest = similarity;
+                weakest = i;
+            }
+        }
+        return weakest;
+    }
+
+    private Node greedyClosest(float[] query, Node start, int level) {
+        Node current = start;
+        float best = dot(query, current.vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (Node neighbor : current.neighbors.get(level)) {
+                float similarity = dot(query, neighbor.vector);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Best-first search of one layer; returns up to ef nodes, most similar first
+    private List<Node> searchLayer(float[] query, Node start, int ef, int level) {
+        Set<Node> visited = new HashSet<>();
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(Comparator.comparingDouble(Scored::similarity).reversed());
+        PriorityQueue<Scored> results = new PriorityQueue<>(Comparator.comparingDouble(Scored::similarity));
+
+        Scored first = new Scored(start, dot(query, start.vector));
+        visited.add(start);
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Scored candidate = candidates.poll();
+            if (results.size() >= ef && candidate.similarity < results.peek().similarity) {
+                break;
+            }
+            for (Node neighbor : candidate.node.neighbors.get(level)) {
+                if (!visited.add(neighbor)) {
+                    continue;
+                }
+                float similarity = dot(query, neighbor.vector);
+                if (results.size() < ef || similarity > results.peek().similarity) {
+                    Scored scored = new Scored(neighbor, similarity);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Node> ordered = new ArrayList<>(results.size());
+        while (!results.isEmpty()) {
+            ordered.add(results.poll().node);
+        }
+        return ordered.reversed();
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private record Scored(Node node, float similarity) {
+    }
+
+    private static class Node {
+        private final long id;
+        private final float[] vector;
+        private final int level;
+        private final List<List<Node>> neighbors;
+        private boolean deleted;
+
+        private Node(long id, float[] vector, int level) {
+            this.id = id;
+            this.vector = vector;
+            this.level = level;
+            this.neighbors = new ArrayList<>(level + 1);
+            for (int i = 0; i <= level; i++) {
+                neighbors.add(new ArrayList<>());
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package dev.uday.alderaan.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Collects submissions for a short window, or until the batch is full, and hands them to the handler together.
+// At most maxQueued submissions may be outstanding; beyond that submit() rejects instead of queueing.
+@Slf4j
+public class MicroBatcher<T, R> {
+
+    private final String name;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Function<List<T>, List<R>> batchHandler;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatcher;
+    private final Semaphore queued;
+
+    private List<Pending<T, R>> pending = new ArrayList<>();
+    private ScheduledFuture<?> pendingFlush;
+
+    public MicroBatcher(String name, Duration window, int maxBatchSize, int maxInFlightBatches, int maxQueued,
+                        Function<List<T>, List<R>> batchHandler) {
+        this.name = name;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchHandler = batchHandler;
+        this.queued = new Semaphore(maxQueued);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, name + "-timer"));
+        this.dispatcher = Executors.newFixedThreadPool(maxInFlightBatches, runnable -> daemon(runnable, name + "-dispatch"));
+    }
+
+    // Cancelling the returned future drops the item if its batch has not been sent yet
+    public CompletableFuture<R> submit(T item) {
+        if (!queued.tryAcquire()) {
+            throw new RejectedExecutionException("Too many submissions waiting for " + name);
+        }
+        CompletableFuture<R> result = new CompletableFuture<>();
+        result.whenComplete((output, error) -> queued.release());
+
+        synchronized (this) {
+            // The caller's deadline goes with the item so the batch request can honour it
+            pending.add(new Pending<>(item, result, Deadline.current()));
+
+            if (pending.size() >= maxBatchSize) {
+                dispatchPending();
+            } else if (pendingFlush == null) {
+                // The first item of a batch opens the window
+                pendingFlush = timer.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        flush();
+        timer.shutdown();
+        dispatcher.shutdown();
+    }
+
+    private synchronized void flush() {
+        if (!pending.isEmpty()) {
+            dispatchPending();
+        }
+    }
+
+    // Callers must hold the lock
+    private void dispatchPending() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+
+        List<Pending<T, R>> batch = pending;
+        pending = new ArrayList<>();
+        dispatcher.execute(() -> process(batch));
+    }
+
+    private void process(List<Pending<T, R>> batch) {
+        // Callers that gave up while the batch was waiting are left out of it
+        List<Pending<T, R>> live = batch.stream().filter(item -> !item.result.isDone()).toList();
+        if (live.isEmpty()) {
+            return;
+        }
+
+        // The whole batch has to be back before the most impatient of its callers gives up
+        Deadline.set(live.stream().map(Pending::deadline).filter(Objects::nonNull)
+                .min(Comparator.naturalOrder()).orElse(null));
+        try {
+            List<R> outputs = batchHandler.apply(live.stream().map(Pending::item).toList());
+            if (outputs.size() != live.size()) {
+                throw new IllegalStateException("Batch returned " + outputs.size() + " results for " + live.size() + " items");
+            }
+            for (int i = 0; i < live.size(); i++) {
+                live.get(i).result.complete(outputs.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.error("Batch of {} items failed", live.size(), e);
+            live.forEach(item -> item.result.completeExceptionally(e));
+        } finally {
+            Deadline.clear();
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record Pending<T, R>(T item, CompletableFuture<R> result, Instant deadline) {
+    }
+}
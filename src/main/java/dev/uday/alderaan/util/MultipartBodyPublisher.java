@@ -0,0 +1,57 @@
+package dev.uday.alderaan.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class MultipartBodyPublisher {
+
+    private final String boundary;
+
+    public MultipartBodyPublisher() {
+        this.boundary = "----JavaMultipartBoundary" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    // Streams the preamble, the file content and the epilogue without staging the file in memory
+    public HttpRequest.BodyPublisher filePart(String name, String fileName, String contentType,
+                                              InputStreamSource source, long size) {
+        byte[] partHeader = ("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + sanitize(fileName) + "\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] partFooter = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofByteArray(partHeader),
+                HttpRequest.BodyPublishers.ofInputStream(() -> {
+                    try {
+                        return source.getInputStream();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }),
+                HttpRequest.BodyPublishers.ofByteArray(partFooter)
+        );
+
+        // A known length lets the sidecar read a plain Content-Length body instead of chunked encoding
+        return HttpRequest.BodyPublishers.fromPublisher(body, partHeader.length + size + partFooter.length);
+    }
+
+    private static String sanitize(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return "audio.wav";
+        }
+        return fileName.replaceAll("[\"\\r\\n]", "_");
+    }
+
+    @FunctionalInterface
+    public interface InputStreamSource {
+        InputStream getInputStream() throws IOException;
+    }
+}
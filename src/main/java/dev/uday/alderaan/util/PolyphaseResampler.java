@@ -0,0 +1,148 @@
+package dev.uday.alderaan.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Arrays;
+
+// Rational-ratio sample rate converter. A Kaiser-windowed sinc low-pass at the lower of the two Nyquist rates is
+// split into one sub-filter (phase) per output offset, so each output sample costs a single short dot product
+// over the input. Input history is kept between calls, so audio can be fed in chunks of any size.
+public class PolyphaseResampler {
+
+    // Sinc zero crossings on each side of the centre, counted at the lower of the two rates
+    private static final int ZERO_CROSSINGS = 8;
+    private static final double KAISER_BETA = 8.0;
+    // Cutoff as a fraction of the lower Nyquist rate, leaving room for the transition band
+    private static final double ROLLOFF = 0.92;
+    private static final int MAX_COEFFICIENTS = 1 << 20;
+
+    // Filters only depend on the ratio and are shared by every stream converting at that ratio. Upload rates are
+    // client-controlled, so the cache is bounded by total coefficients: odd ratios can evict each other but never
+    // pile up. 4M floats is 16 MB, room for every common ratio several times over.
+    private static final Cache<Long, float[][]> FILTERS = Caffeine.newBuilder()
+            .maximumWeight(4L * MAX_COEFFICIENTS)
+            .<Long, float[][]>weigher((ratio, phases) -> phases.length * phases[0].length)
+            .build();
+
+    private final int up;
+    private final int down;
+    private final int taps;
+    private final float[][] phases;
+    private final long delay;
+
+    // buffer[0] holds input sample bufferStart; samples before the first input are zeros
+    private float[] buffer;
+    private int buffered;
+    private long bufferStart;
+    private long inputSamples;
+    private long outputSamples;
+
+    public PolyphaseResampler(int inputRate, int outputRate) {
+        int gcd = gcd(inputRate, outputRate);
+        this.up = outputRate / gcd;
+        this.down = inputRate / gcd;
+        this.phases = FILTERS.get(((long) up << 32) | down, ratio -> design(up, down));
+        this.taps = phases[0].length;
+        // Centre of the prototype filter, so output sample 0 lines up with input sample 0
+        this.delay = ((long) taps * up - 1) / 2;
+        this.buffer = new float[taps * 2];
+        this.buffered = taps - 1;
+        this.bufferStart = -(taps - 1);
+    }
+
+    public float[] process(float[] input, int length) {
+        append(input, length);
+        inputSamples += length;
+        return drain(Long.MAX_VALUE);
+    }
+
+    // Pads the end with silence to emit the outputs still waiting on future input
+    public float[] flush() {
+        long expected = (inputSamples * up + down - 1) / down;
+        append(new float[taps + (int) (delay / up) + 1], taps + (int) (delay / up) + 1);
+        return drain(expected);
+    }
+
+    private float[] drain(long limit) {
+        long available = bufferStart + buffered;
+        long end = Math.min(limit, outputsBefore(available));
+        float[] output = new float[(int) Math.max(0, end - outputSamples)];
+        for (int n = 0; n < output.length; n++, outputSamples++) {
+            long t = outputSamples * down + delay;
+            float[] phase = phases[(int) (t % up)];
+            // Newest input sample the phase applies to; the filter runs backwards over the taps before it
+            int newest = (int) (t / up - bufferStart);
+            float sum = 0;
+            for (int k = 0; k < taps; k++) {
+                sum += phase[k] * buffer[newest - k];
+            }
+            output[n] = sum;
+        }
+
+        // Keep only the history the next output still needs
+        long oldestNeeded = (outputSamples * down + delay) / up - (taps - 1);
+        int discard = (int) Math.max(0, Math.min(buffered, oldestNeeded - bufferStart));
+        System.arraycopy(buffer, discard, buffer, 0, buffered - discard);
+        buffered -= discard;
+        bufferStart += discard;
+        return output;
+    }
+
+    // Outputs whose newest input sample is before the given input index
+    private long outputsBefore(long available) {
+        long limit = available * up - delay;
+        return limit <= 0 ? 0 : (limit + down - 1) / down;
+    }
+
+    private void append(float[] input, int length) {
+        if (buffered + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, buffered + length));
+        }
+        System.arraycopy(input, 0, buffer, buffered, length);
+        buffered += length;
+    }
+
+    private static float[][] design(int up, int down) {
+        int taps = (int) Math.ceil(2.0 * ZERO_CROSSINGS * Math.max(up, down) / (ROLLOFF * up));
+        int length = taps * up;
+        if (length > MAX_COEFFICIENTS) {
+            throw new IllegalArgumentException("Unsupported resampling ratio " + up + "/" + down);
+        }
+
+        // Cutoff in cycles per sample at the upsampled rate
+        double cutoff = ROLLOFF * 0.5 / Math.max(up, down);
+        double centre = (length - 1) / 2.0;
+        double[] prototype = new double[length];
+        double sum = 0;
+        for (int n = 0; n < length; n++) {
+            double x = 2 * cutoff * (n - centre);
+            double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+            double r = (n - centre) / centre;
+            double window = besselI0(KAISER_BETA * Math.sqrt(Math.max(0, 1 - r * r))) / besselI0(KAISER_BETA);
+            prototype[n] = sinc * window;
+            sum += prototype[n];
+        }
+
+        // Unity gain at DC once the zero-stuffed input is filtered
+        float[][] phases = new float[up][taps];
+        for (int n = 0; n < length; n++) {
+            phases[n % up][n / up] = (float) (prototype[n] * up / sum);
+        }
+        return phases;
+    }
+
+    private static double besselI0(double x) {
+        double sum = 1;
+        double term = 1;
+        for (int k = 1; k < 50 && term > 1e-12 * sum; k++) {
+            term *= (x / (2 * k)) * (x / (2 * k));
+            sum += term;
+        }
+        return sum;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
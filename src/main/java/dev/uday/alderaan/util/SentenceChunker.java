@@ -0,0 +1,50 @@
+package dev.uday.alderaan.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SentenceChunker {
+
+    private final int minSentenceLength;
+    private final StringBuilder buffer = new StringBuilder();
+    private int scanFrom = 0;
+
+    public SentenceChunker(int minSentenceLength) {
+        this.minSentenceLength = minSentenceLength;
+    }
+
+    public List<String> append(String token) {
+        buffer.append(token);
+        List<String> sentences = new ArrayList<>();
+
+        int start = 0;
+        // The character after a terminator must be known, so the last character is left for the next token
+        for (int i = scanFrom; i < buffer.length() - 1; i++) {
+            if (isBoundary(buffer.charAt(i), buffer.charAt(i + 1)) && i + 1 - start >= minSentenceLength) {
+                String sentence = buffer.substring(start, i + 1).trim();
+                if (!sentence.isEmpty()) {
+                    sentences.add(sentence);
+                }
+                start = i + 1;
+            }
+        }
+
+        buffer.delete(0, start);
+        scanFrom = Math.max(0, buffer.length() - 1);
+        return sentences;
+    }
+
+    public String flush() {
+        String remainder = buffer.toString().trim();
+        buffer.setLength(0);
+        scanFrom = 0;
+        return remainder;
+    }
+
+    private static boolean isBoundary(char current, char next) {
+        if (current == '\n') {
+            return true;
+        }
+        return (current == '.' || current == '!' || current == '?') && Character.isWhitespace(next);
+    }
+}
@@ -0,0 +1,72 @@
+package dev.uday.alderaan.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Fork/join for the independent steps of one request, with the semantics of StructuredTaskScope.ShutdownOnFailure
+// (still a preview API in Java 21): the first failure, an interrupt of the owner or closing the scope cancels
+// every subtask that is still running. A scope belongs to the thread that opened it.
+public class StructuredScope implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final List<Future<?>> subtasks = new ArrayList<>();
+    private final BlockingQueue<Future<?>> completed = new LinkedBlockingQueue<>();
+    private int joined;
+
+    public StructuredScope(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public <T> Future<T> fork(Callable<T> task) {
+        FutureTask<T> subtask = new FutureTask<>(TurnContext.propagate(task)) {
+            @Override
+            protected void done() {
+                completed.add(this);
+            }
+        };
+        subtasks.add(subtask);
+        executor.execute(subtask);
+        return subtask;
+    }
+
+    // Waits for every subtask; results are then available through Future.resultNow()
+    public void join() throws Exception {
+        try {
+            while (joined < subtasks.size()) {
+                Future<?> subtask = completed.take();
+                joined++;
+                try {
+                    subtask.get();
+                } catch (ExecutionException e) {
+                    cancelAll();
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                } catch (CancellationException e) {
+                    cancelAll();
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelAll();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        for (Future<?> subtask : subtasks) {
+            subtask.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.uday.alderaan.util;
+
+// Cheap token counts for prompt budgeting without running the model's tokenizer.
+// Gemma's tokenizer averages roughly four characters of English text per token.
+public final class TokenEstimator {
+
+    // Role label and separators added around every history message
+    public static final int MESSAGE_OVERHEAD = 4;
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    public static int estimateMessage(String content) {
+        return estimate(content) + MESSAGE_OVERHEAD;
+    }
+}
@@ -0,0 +1,74 @@
+package dev.uday.alderaan.util;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.Callable;
+
+// The endpoint a chat or voice turn came in on, used to tag its stage metrics. Blocking code reads it from
+// the current thread; reactive pipelines carry it in their subscriber context.
+public final class TurnContext {
+
+    public static final String UNKNOWN_ENDPOINT = "none";
+
+    private static final String ENDPOINT_KEY = TurnContext.class.getName() + ".endpoint";
+    private static final ThreadLocal<String> ENDPOINT = new ThreadLocal<>();
+
+    private TurnContext() {
+    }
+
+    public static void setEndpoint(String endpoint) {
+        ENDPOINT.set(endpoint);
+    }
+
+    public static void clear() {
+        ENDPOINT.remove();
+    }
+
+    public static String endpoint() {
+        String endpoint = ENDPOINT.get();
+        return endpoint != null ? endpoint : UNKNOWN_ENDPOINT;
+    }
+
+    public static String endpoint(ContextView context) {
+        return context.getOrDefault(ENDPOINT_KEY, endpoint());
+    }
+
+    // Captures the current thread's endpoint for a pipeline that will run elsewhere
+    public static Context capture() {
+        return withEndpoint(endpoint());
+    }
+
+    public static Context withEndpoint(String endpoint) {
+        return Context.of(ENDPOINT_KEY, endpoint);
+    }
+
+    public static <T> Callable<T> withEndpoint(String endpoint, Callable<T> task) {
+        return () -> {
+            String previous = ENDPOINT.get();
+            ENDPOINT.set(endpoint);
+            try {
+                return task.call();
+            } finally {
+                ENDPOINT.set(previous);
+            }
+        };
+    }
+
+    public static Runnable withEndpoint(String endpoint, Runnable task) {
+        return () -> {
+            String previous = ENDPOINT.get();
+            ENDPOINT.set(endpoint);
+            try {
+                task.run();
+            } finally {
+                ENDPOINT.set(previous);
+            }
+        };
+    }
+
+    // Carries both the endpoint and the request deadline onto the thread that runs the task
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        return withEndpoint(endpoint(), Deadline.propagate(task));
+    }
+}
@@ -0,0 +1,192 @@
+package dev.uday.alderaan.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Minimal RIFF/WAVE handling: joining the per-sentence clips of a streamed reply into one file, reading the
+// header of an upload without buffering it, and writing the compact formats replies can be sent in
+public final class WavFiles {
+
+    public static final int FORMAT_PCM = 1;
+    public static final int FORMAT_IEEE_FLOAT = 3;
+    public static final int FORMAT_MULAW = 7;
+    public static final int FORMAT_IMA_ADPCM = 0x11;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+    public static final int PCM_HEADER_LENGTH = 44;
+
+    // dataLength is -1 when the writer never filled it in
+    public record Header(int format, int channels, int sampleRate, int bitsPerSample, int blockAlign, long dataLength) {
+    }
+
+    private WavFiles() {
+    }
+
+    // Reads up to the start of the sample data. Returns null unless the stream is integer or float PCM WAV.
+    public static Header readHeader(InputStream in) throws IOException {
+        ByteBuffer riff = readLittleEndian(in, 12);
+        if (riff == null || !matches(riff.array(), 0, "RIFF") || !matches(riff.array(), 8, "WAVE")) {
+            return null;
+        }
+
+        ByteBuffer fmt = null;
+        ByteBuffer chunk;
+        while ((chunk = readLittleEndian(in, 8)) != null) {
+            long size = Integer.toUnsignedLong(chunk.getInt(4));
+            if (matches(chunk.array(), 0, "data")) {
+                return fmt == null ? null : header(fmt, size == 0 || size == 0xFFFFFFFFL ? -1 : size);
+            }
+            if (matches(chunk.array(), 0, "fmt ") && size >= 16 && size <= 64) {
+                fmt = readLittleEndian(in, (int) size);
+                if (fmt == null) {
+                    return null;
+                }
+                in.skipNBytes(size & 1);
+            } else {
+                in.skipNBytes(size + (size & 1));
+            }
+        }
+        return null;
+    }
+
+    // Fields in the order of the fmt chunk
+    public static byte[] write(int format, int channels, int sampleRate, int bytesPerSecond, int blockAlign,
+                               int bitsPerSample, byte[] formatExtension, long sampleFrames, byte[] data) {
+        // Plain PCM has no extension size field and needs no fact chunk; other formats carry their length in
+        // samples in a fact chunk
+        boolean fact = format != FORMAT_PCM;
+        int formatLength = fact ? 18 + formatExtension.length : 16;
+        int length = 12 + 8 + formatLength + (formatLength & 1) + (fact ? 12 : 0) + 8 + data.length + (data.length & 1);
+
+        ByteBuffer wav = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put(ascii("RIFF")).putInt(length - 8).put(ascii("WAVE"));
+        wav.put(ascii("fmt ")).putInt(formatLength)
+                .putShort((short) format).putShort((short) channels).putInt(sampleRate).putInt(bytesPerSecond)
+                .putShort((short) blockAlign).putShort((short) bitsPerSample);
+        if (fact) {
+            wav.putShort((short) formatExtension.length).put(formatExtension);
+            if ((formatLength & 1) == 1) {
+                wav.put((byte) 0);
+            }
+            wav.put(ascii("fact")).putInt(4).putInt((int) sampleFrames);
+        }
+        wav.put(ascii("data")).putInt(data.length).put(data);
+        return wav.array();
+    }
+
+    // Header of a plain PCM file whose sample data is streamed after it
+    public static byte[] pcmHeader(int channels, int sampleRate, int bitsPerSample, long dataLength) {
+        int blockAlign = channels * bitsPerSample / 8;
+        ByteBuffer wav = ByteBuffer.allocate(PCM_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put(ascii("RIFF")).putInt((int) (PCM_HEADER_LENGTH - 8 + dataLength)).put(ascii("WAVE"));
+        wav.put(ascii("fmt ")).putInt(16)
+                .putShort((short) FORMAT_PCM).putShort((short) channels).putInt(sampleRate)
+                .putInt(sampleRate * blockAlign).putShort((short) blockAlign).putShort((short) bitsPerSample);
+        wav.put(ascii("data")).putInt((int) dataLength);
+        return wav.array();
+    }
+
+    private static Header header(ByteBuffer fmt, long dataLength) {
+        int format = Short.toUnsignedInt(fmt.getShort(0));
+        int channels = Short.toUnsignedInt(fmt.getShort(2));
+        int sampleRate = fmt.getInt(4);
+        int blockAlign = Short.toUnsignedInt(fmt.getShort(12));
+        int bitsPerSample = Short.toUnsignedInt(fmt.getShort(14));
+        // The real format of an extensible header is the first two bytes of its subformat GUID
+        if (format == FORMAT_EXTENSIBLE && fmt.capacity() >= 26) {
+            format = Short.toUnsignedInt(fmt.getShort(24));
+        }
+
+        boolean supported = switch (format) {
+            case FORMAT_PCM -> bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24 || bitsPerSample == 32;
+            case FORMAT_IEEE_FLOAT -> bitsPerSample == 32 || bitsPerSample == 64;
+            default -> false;
+        };
+        if (!supported || channels == 0 || sampleRate <= 0 || blockAlign != channels * bitsPerSample / 8) {
+            return null;
+        }
+        return new Header(format, channels, sampleRate, bitsPerSample, blockAlign, dataLength);
+    }
+
+    private static ByteBuffer readLittleEndian(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        return bytes.length < length ? null : ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Returns null when a clip is not WAV or the clips do not share one format
+    public static byte[] concat(List<byte[]> clips) {
+        if (clips.isEmpty()) {
+            return null;
+        }
+
+        byte[] format = null;
+        int dataLength = 0;
+        int[][] dataRanges = new int[clips.size()][];
+        for (int i = 0; i < clips.size(); i++) {
+            byte[] clip = clips.get(i);
+            int[] fmt = findChunk(clip, "fmt ");
+            int[] data = findChunk(clip, "data");
+            if (fmt == null || data == null) {
+                return null;
+            }
+            byte[] clipFormat = Arrays.copyOfRange(clip, fmt[0], fmt[0] + fmt[1]);
+            if (format == null) {
+                format = clipFormat;
+            } else if (!Arrays.equals(format, clipFormat)) {
+                return null;
+            }
+            dataRanges[i] = data;
+            dataLength += data[1];
+        }
+
+        int formatChunkLength = 8 + format.length + (format.length & 1);
+        ByteBuffer wav = ByteBuffer.allocate(12 + formatChunkLength + 8 + dataLength).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put(ascii("RIFF")).putInt(4 + formatChunkLength + 8 + dataLength).put(ascii("WAVE"));
+        wav.put(ascii("fmt ")).putInt(format.length).put(format);
+        if ((format.length & 1) == 1) {
+            wav.put((byte) 0);
+        }
+        wav.put(ascii("data")).putInt(dataLength);
+        for (int i = 0; i < clips.size(); i++) {
+            wav.put(clips.get(i), dataRanges[i][0], dataRanges[i][1]);
+        }
+        return wav.array();
+    }
+
+    // Offset and length of a chunk's body, or null when the file is not WAV or lacks the chunk
+    public static int[] findChunk(byte[] wav, String id) {
+        if (wav.length < 12 || !matches(wav, 0, "RIFF") || !matches(wav, 8, "WAVE")) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(wav).order(ByteOrder.LITTLE_ENDIAN);
+        int offset = 12;
+        while (offset + 8 <= wav.length) {
+            long size = Integer.toUnsignedLong(buffer.getInt(offset + 4));
+            // Streaming writers leave the data size unset; the data then runs to the end of the file
+            int length = (int) Math.min(size, wav.length - offset - 8L);
+            if (matches(wav, offset, id)) {
+                return new int[]{offset + 8, length};
+            }
+            // Chunks are padded to an even length
+            offset += 8 + length + (length & 1);
+        }
+        return null;
+    }
+
+    private static boolean matches(byte[] bytes, int offset, String id) {
+        for (int i = 0; i < 4; i++) {
+            if (bytes[offset + i] != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String id) {
+        return id.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,84 @@
+package dev.uday.alderaan.bench;
+
+import dev.uday.alderaan.service.AudioTranscoder;
+import dev.uday.alderaan.service.TurnMetrics;
+import dev.uday.alderaan.util.AudioEncoding;
+import dev.uday.alderaan.util.WavFiles;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the audio stage per clip: normalizing a 10 s upload for STT and re-encoding a 5 s reply
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AudioTranscodeBenchmark {
+
+    @Param({"48000", "44100", "22050"})
+    private int uploadRate;
+
+    private AudioTranscoder audioTranscoder;
+    private byte[] upload;
+    private byte[] reply;
+
+    @Setup
+    public void setUp() {
+        audioTranscoder = new AudioTranscoder(new TurnMetrics(new SimpleMeterRegistry(), "bench"),
+                true, 16000, 16000, "wav");
+        upload = tone(uploadRate, 2, 10);
+        reply = tone(22050, 1, 5);
+    }
+
+    // Drains the normalized stream the way the STT request body does
+    @Benchmark
+    public long normalizeUpload() throws Exception {
+        AudioTranscoder.NormalizedUpload normalized = audioTranscoder.normalizeForStt(() -> new ByteArrayInputStream(upload));
+        try (InputStream in = normalized.audio().getInputStream()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeReplyMuLaw() {
+        return audioTranscoder.encode(reply, AudioEncoding.MULAW);
+    }
+
+    @Benchmark
+    public byte[] encodeReplyAdpcm() {
+        return audioTranscoder.encode(reply, AudioEncoding.ADPCM);
+    }
+
+    // A voice-band chord, so the resampler's filter and the ADPCM quantizer both have work to do
+    private static byte[] tone(int sampleRate, int channels, int seconds) {
+        int frames = sampleRate * seconds;
+        ByteBuffer pcm = ByteBuffer.allocate(frames * channels * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            double t = (double) i / sampleRate;
+            short sample = (short) (8000 * Math.sin(2 * Math.PI * 220 * t) + 4000 * Math.sin(2 * Math.PI * 1870 * t));
+            for (int channel = 0; channel < channels; channel++) {
+                pcm.putShort(sample);
+            }
+        }
+        return WavFiles.write(WavFiles.FORMAT_PCM, channels, sampleRate, sampleRate * channels * 2, channels * 2, 16,
+                new byte[0], frames, pcm.array());
+    }
+}
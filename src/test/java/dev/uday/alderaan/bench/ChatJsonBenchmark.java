@@ -0,0 +1,77 @@
+package dev.uday.alderaan.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import dev.uday.alderaan.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON serialization of the chat entities as returned by the session and message endpoints
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatJsonBenchmark {
+
+    @Param({"1", "20", "200"})
+    private int messageCount;
+
+    @Param({"64", "1024"})
+    private int contentLength;
+
+    private ObjectMapper objectMapper;
+    private ChatSession session;
+    private List<ChatMessage> messages;
+
+    @Setup
+    public void setUp() {
+        // Same modules Spring Boot registers on its ObjectMapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark-user");
+
+        session = new ChatSession(user, "Benchmark session");
+        session.setId(1L);
+        session.setCreatedAt(LocalDateTime.now());
+
+        messages = new ArrayList<>();
+        for (int i = 0; i < messageCount; i++) {
+            ChatMessage.MessageType type = i % 2 == 0 ? ChatMessage.MessageType.USER_TEXT : ChatMessage.MessageType.AI_TEXT;
+            ChatMessage message = new ChatMessage(session, type, PromptBuildBenchmark.text(contentLength, i));
+            message.setId((long) i + 1);
+            message.setCreatedAt(LocalDateTime.now());
+            messages.add(message);
+        }
+        session.setMessages(messages);
+    }
+
+    @Benchmark
+    public byte[] serializeSession() throws Exception {
+        return objectMapper.writeValueAsBytes(session);
+    }
+
+    @Benchmark
+    public byte[] serializeMessages() throws Exception {
+        return objectMapper.writeValueAsBytes(messages);
+    }
+}
@@ -0,0 +1,76 @@
+package dev.uday.alderaan.bench;
+
+import dev.uday.alderaan.security.JwtAuthenticationFilter;
+import dev.uday.alderaan.security.PrincipalCache;
+import dev.uday.alderaan.service.UserService;
+import dev.uday.alderaan.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.concurrent.TimeUnit;
+
+// The per-request authentication path with warm token and principal caches, so no database is involved
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = JwtBenchmark.createJwtUtil(10000);
+        PrincipalCache principalCache = new PrincipalCache(new SimpleMeterRegistry(), 10000, 300);
+        principalCache.get("benchmark-user", username -> User.withUsername(username)
+                .password("{noop}unused")
+                .authorities("ROLE_USER")
+                .build());
+
+        // Never consulted while the principal is cached
+        UserService userService = new UserService(null, null);
+        filter = new JwtAuthenticationFilter(jwtUtil, userService, principalCache);
+        authorizationHeader = "Bearer " + jwtUtil.generateToken("benchmark-user");
+    }
+
+    @Benchmark
+    public Authentication authenticatedRequest() throws Exception {
+        return filter(authorizationHeader);
+    }
+
+    @Benchmark
+    public Authentication anonymousRequest() throws Exception {
+        return filter(null);
+    }
+
+    private Authentication filter(String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/ai/chat");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
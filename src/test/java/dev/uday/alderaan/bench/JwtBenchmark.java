@@ -0,0 +1,65 @@
+package dev.uday.alderaan.bench;
+
+import dev.uday.alderaan.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Token issue and verification, with the verified-claims cache warm and with it disabled
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    static final String SECRET = "myVerySecretKeyThatIsAtLeast256BitsLongForHS256Algorithm";
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil parsingJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = createJwtUtil(10000);
+        parsingJwtUtil = createJwtUtil(0);
+        token = cachingJwtUtil.generateToken("benchmark-user");
+        cachingJwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingJwtUtil.generateToken("benchmark-user");
+    }
+
+    @Benchmark
+    public Claims verifyCachedToken() {
+        return cachingJwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public Claims verifyUncachedToken() {
+        return parsingJwtUtil.verifyToken(token);
+    }
+
+    static JwtUtil createJwtUtil(long verifiedCacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", verifiedCacheMaxSize);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+}
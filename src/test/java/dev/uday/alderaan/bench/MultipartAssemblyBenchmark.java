@@ -0,0 +1,80 @@
+package dev.uday.alderaan.bench;
+
+import dev.uday.alderaan.util.MultipartBodyPublisher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+// Builds the STT multipart body the way SpeechRecognitionService does and drains it as the HttpClient would
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultipartAssemblyBenchmark {
+
+    @Param({"16384", "262144", "4194304"})
+    private int payloadSize;
+
+    private byte[] audio;
+
+    @Setup
+    public void setUp() {
+        audio = new byte[payloadSize];
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public long assembleAndDrain() throws Exception {
+        MultipartBodyPublisher multipart = new MultipartBodyPublisher();
+        HttpRequest.BodyPublisher body = multipart.filePart("audio", "utterance.wav", "audio/wav",
+                () -> new ByteArrayInputStream(audio), audio.length);
+        return drain(body);
+    }
+
+    private static long drain(HttpRequest.BodyPublisher body) throws Exception {
+        CompletableFuture<Long> drained = new CompletableFuture<>();
+        body.subscribe(new Flow.Subscriber<>() {
+            private long bytes;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                bytes += item.remaining();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                drained.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                drained.complete(bytes);
+            }
+        });
+        return drained.get(10, TimeUnit.SECONDS);
+    }
+}
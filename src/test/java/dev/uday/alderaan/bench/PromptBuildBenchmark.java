@@ -0,0 +1,91 @@
+package dev.uday.alderaan.bench;
+
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.HistoryMessage;
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.service.AiService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Prompt assembly from conversation history, across history lengths and message sizes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptBuildBenchmark {
+
+    private static final MethodHandle BUILD_PROMPT;
+
+    static {
+        try {
+            BUILD_PROMPT = MethodHandles.privateLookupIn(AiService.class, MethodHandles.lookup())
+                    .findVirtual(AiService.class, "buildMessagesWithHistory",
+                            MethodType.methodType(List.class, String.class, ChatHistory.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"0", "10", "20", "50"})
+    private int historyLength;
+
+    @Param({"32", "256", "1024"})
+    private int messageLength;
+
+    private AiService aiService;
+    private ChatHistory history;
+    private String prompt;
+
+    @Setup
+    public void setUp() {
+        // The model is never called; it is only needed to construct the service
+        OllamaChatModel chatModel = OllamaChatModel.builder().ollamaApi(OllamaApi.builder().build()).build();
+        aiService = new AiService(null, chatModel, null, null, null, null, null, null);
+        ReflectionTestUtils.setField(aiService, "systemInstructions", "You are a helpful AI assistant.");
+        ReflectionTestUtils.setField(aiService, "maxHistoryMessages", historyLength);
+        // Unlimited so every message is assembled; the budget walk itself is still measured
+        ReflectionTestUtils.setField(aiService, "historyTokenBudget", Integer.MAX_VALUE);
+
+        List<HistoryMessage> messages = new ArrayList<>();
+        for (int i = 0; i < historyLength; i++) {
+            ChatMessage.MessageType type = i % 2 == 0 ? ChatMessage.MessageType.USER_TEXT : ChatMessage.MessageType.AI_TEXT;
+            messages.add(new HistoryMessage((long) i, type, text(messageLength, i)));
+        }
+        history = ChatHistory.of(messages);
+        prompt = text(messageLength, historyLength);
+    }
+
+    @Benchmark
+    public List<?> buildMessagesWithHistory() throws Throwable {
+        return (List<?>) BUILD_PROMPT.invokeExact(aiService, prompt, history);
+    }
+
+    static String text(int length, int seed) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("word").append(seed).append(' ');
+        }
+        return text.substring(0, length);
+    }
+}
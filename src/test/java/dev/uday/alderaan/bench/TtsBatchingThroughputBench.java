@@ -0,0 +1,150 @@
+package dev.uday.alderaan.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.uday.alderaan.service.BackendGuards;
+import dev.uday.alderaan.service.SpeechBackendClient;
+import dev.uday.alderaan.service.SpeechSynthesisService;
+import dev.uday.alderaan.service.TtsAudioCache;
+import dev.uday.alderaan.service.TurnMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Throughput of SpeechSynthesisService with and without micro-batching against a stub sidecar that, like the
+// real one, synthesizes one request at a time and pays a fixed per-request overhead plus a per-clip cost.
+//
+// Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+//           -Dexec.mainClass=dev.uday.alderaan.bench.TtsBatchingThroughputBench
+//           -Dexec.args="<clients> <seconds> <requestOverheadMs> <perClipMs>"
+public class TtsBatchingThroughputBench {
+
+    private static final byte[] CLIP = new byte[4096];
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long requestOverheadMs = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        long perClipMs = args.length > 3 ? Long.parseLong(args[3]) : 5;
+
+        HttpServer sidecar = startStubSidecar(requestOverheadMs, perClipMs);
+        String url = "http://127.0.0.1:" + sidecar.getAddress().getPort();
+
+        try {
+            System.out.printf("clients=%d duration=%ds overhead=%dms perClip=%dms%n",
+                    clients, seconds, requestOverheadMs, perClipMs);
+            run("unbatched", url, false, 0, 1, clients, seconds);
+            for (int window : new int[]{2, 5, 10}) {
+                for (int maxSize : new int[]{4, 8, 16}) {
+                    run("batched window=" + window + "ms max=" + maxSize, url, true, window, maxSize, clients, seconds);
+                }
+            }
+        } finally {
+            sidecar.stop(0);
+        }
+    }
+
+    private static void run(String label, String url, boolean batching, long windowMs, int maxSize,
+                            int clients, int seconds) throws Exception {
+        SpeechSynthesisService service = createService(url, batching, windowMs, maxSize);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong totalLatencyNanos = new AtomicLong();
+        AtomicLong sequence = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            pool.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    // Unique texts so the audio cache never short-circuits the sidecar
+                    String text = "Benchmark sentence number " + sequence.incrementAndGet();
+                    long start = System.nanoTime();
+                    service.synthesizeSpeech(text);
+                    totalLatencyNanos.addAndGet(System.nanoTime() - start);
+                    completed.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+
+        long count = completed.get();
+        System.out.printf("%-32s %8.1f clips/s  mean latency %7.1f ms%n", label,
+                count / (double) seconds, count == 0 ? 0 : totalLatencyNanos.get() / 1e6 / count);
+    }
+
+    private static SpeechSynthesisService createService(String url, boolean batching, long windowMs, int maxSize)
+            throws IOException {
+        SpeechBackendClient client = new SpeechBackendClient(List.of(url), 3, Executors.newCachedThreadPool());
+        TtsAudioCache cache = new TtsAudioCache(new SimpleMeterRegistry(), 1,
+                Files.createTempDirectory("tts-bench").toString(), Long.MAX_VALUE);
+
+        SpeechSynthesisService service = new SpeechSynthesisService(client, cache, new BackendGuards(new StandardEnvironment()),
+                new TurnMetrics(new SimpleMeterRegistry(), "bench"));
+        ReflectionTestUtils.setField(service, "speaker", "");
+        ReflectionTestUtils.setField(service, "sampleRate", 22050);
+        ReflectionTestUtils.setField(service, "batchingEnabled", batching);
+        ReflectionTestUtils.setField(service, "batchWindowMs", windowMs);
+        ReflectionTestUtils.setField(service, "batchMaxSize", maxSize);
+        ReflectionTestUtils.setField(service, "batchMaxInFlight", 4);
+        ReflectionTestUtils.setField(service, "batchMaxQueued", Integer.MAX_VALUE);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    private static HttpServer startStubSidecar(long requestOverheadMs, long perClipMs) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        Object model = new Object();
+
+        server.createContext("/tts", exchange -> {
+            if (exchange.getRequestURI().getPath().equals("/tts/batch")) {
+                JsonNode texts = MAPPER.readTree(exchange.getRequestBody()).path("texts");
+                synthesize(model, requestOverheadMs + perClipMs * texts.size());
+                // Length-prefixed clips, as the sidecar sends them
+                ByteBuffer body = ByteBuffer.allocate(texts.size() * (4 + CLIP.length));
+                texts.forEach(text -> body.putInt(CLIP.length).put(CLIP));
+                respond(exchange, "application/octet-stream", body.array());
+            } else {
+                exchange.getRequestBody().readAllBytes();
+                synthesize(model, requestOverheadMs + perClipMs);
+                respond(exchange, "audio/wav", CLIP);
+            }
+        });
+        server.createContext("/health", exchange -> respond(exchange, "application/json", "{}".getBytes()));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    // The model is shared, so synthesis is serialized exactly as in the Flask sidecar
+    private static void synthesize(Object model, long millis) {
+        synchronized (model) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
@@ -0,0 +1,52 @@
+package dev.uday.alderaan.bench.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// A latency model parsed from "fixed:<ms>", "uniform:<minMs>:<maxMs>" or "lognormal:<medianMs>:<sigma>"
+public class LatencyDistribution {
+
+    private final String spec;
+    private final String type;
+    private final double first;
+    private final double second;
+
+    private LatencyDistribution(String spec, String type, double first, double second) {
+        this.spec = spec;
+        this.type = type;
+        this.first = first;
+        this.second = second;
+    }
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        return switch (parts[0]) {
+            case "fixed" -> new LatencyDistribution(spec, "fixed", Double.parseDouble(parts[1]), 0);
+            case "uniform", "lognormal" ->
+                    new LatencyDistribution(spec, parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        };
+    }
+
+    public long sampleMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = switch (type) {
+            case "uniform" -> first + random.nextDouble() * (second - first);
+            // Service times are right-skewed; a log-normal around the median gives a realistic tail
+            case "lognormal" -> first * Math.exp(second * random.nextGaussian());
+            default -> first;
+        };
+        return Math.max(0, Math.round(millis));
+    }
+
+    public void sleep() throws InterruptedException {
+        long millis = sampleMillis();
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,356 @@
+package dev.uday.alderaan.bench.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.uday.alderaan.AlderaanApplication;
+import dev.uday.alderaan.util.MultipartBodyPublisher;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Drives a mixed text/speech/voice workload against the app with Ollama and the speech sidecar replaced by
+// in-process stubs, and reports throughput and latency percentiles per endpoint. Without -Dload.app-url the
+// app is started in-process against the stubs (it still needs its Postgres database).
+//
+// Run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+//           -Dexec.mainClass=dev.uday.alderaan.bench.load.LoadTestHarness
+//           -Dload.clients=32 -Dload.duration-seconds=60 -Dload.mix=chat:3,chat-stream:3,voice:1
+//
+// Options (system properties, defaults in brackets):
+//   load.app-url            target an already running app instead of starting one []
+//   load.clients            concurrent simulated users [16]
+//   load.warmup-seconds     load applied before measuring [10]
+//   load.duration-seconds   measured period [60]
+//   load.mix                weighted workloads: chat, chat-stream, speech, speech-stream, voice, voice-stream
+//                           [chat:3,chat-stream:3,speech:1,speech-stream:1,voice:1,voice-stream:1]
+//   load.distinct-prompts   size of the prompt pool, 0 for every prompt unique [0]
+//   load.ollama.ttft        time to first token [lognormal:250:0.4]
+//   load.ollama.token       time between tokens [fixed:15]
+//   load.ollama.tokens      tokens per reply [48]
+//   load.ollama.parallel    requests Ollama works on at once [4]
+//   load.tts.latency        per-request TTS time [lognormal:150:0.3]
+//   load.tts.per-clip-ms    additional TTS time per synthesized clip [40]
+//   load.tts.parallel       TTS requests the sidecar works on at once [1]
+//   load.stt.latency        STT time [lognormal:400:0.3]
+//   load.stt.parallel       STT requests the sidecar works on at once [1]
+//   load.utterance-ms       length of the uploaded voice clip [3000]
+public class LoadTestHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final Map<String, Integer> mix;
+    private final int distinctPrompts;
+    private final byte[] utterance;
+    private final AtomicLong promptSequence = new AtomicLong();
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private volatile boolean measuring;
+    private String token;
+
+    private LoadTestHarness(String baseUrl, Map<String, Integer> mix, int distinctPrompts, byte[] utterance) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.distinctPrompts = distinctPrompts;
+        this.utterance = utterance;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        for (String workload : mix.keySet()) {
+            stats.put(workload, new EndpointStats());
+            if (workload.endsWith("-stream")) {
+                stats.put(workload + " (first event)", new EndpointStats());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("load.clients", 16);
+        int warmupSeconds = Integer.getInteger("load.warmup-seconds", 10);
+        int durationSeconds = Integer.getInteger("load.duration-seconds", 60);
+        Map<String, Integer> mix = parseMix(System.getProperty("load.mix",
+                "chat:3,chat-stream:3,speech:1,speech-stream:1,voice:1,voice-stream:1"));
+
+        try (StubOllamaServer ollama = new StubOllamaServer(
+                distribution("load.ollama.ttft", "lognormal:250:0.4"),
+                distribution("load.ollama.token", "fixed:15"),
+                Integer.getInteger("load.ollama.tokens", 48),
+                Integer.getInteger("load.ollama.parallel", 4));
+             StubSpeechSidecar sidecar = new StubSpeechSidecar(
+                     distribution("load.tts.latency", "lognormal:150:0.3"),
+                     Long.getLong("load.tts.per-clip-ms", 40),
+                     Integer.getInteger("load.tts.parallel", 1),
+                     distribution("load.stt.latency", "lognormal:400:0.3"),
+                     Integer.getInteger("load.stt.parallel", 1),
+                     "What is the weather like today")) {
+
+            String appUrl = System.getProperty("load.app-url", "");
+            ConfigurableApplicationContext app = null;
+            if (appUrl.isBlank()) {
+                app = new SpringApplicationBuilder(AlderaanApplication.class)
+                        .properties("server.port=0",
+                                "spring.ai.ollama.base-url=" + ollama.getUrl(),
+                                "speech.backend.urls=" + sidecar.getUrl(),
+                                "spring.jpa.show-sql=false",
+                                "spring.devtools.restart.enabled=false")
+                        .run();
+                appUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+            } else {
+                System.out.printf("Point the app at the stubs: spring.ai.ollama.base-url=%s speech.backend.urls=%s%n",
+                        ollama.getUrl(), sidecar.getUrl());
+            }
+
+            try {
+                byte[] utterance = StubServers.silentWav(Long.getLong("load.utterance-ms", 3000), 16000);
+                LoadTestHarness harness = new LoadTestHarness(appUrl, mix,
+                        Integer.getInteger("load.distinct-prompts", 0), utterance);
+                harness.run(clients, warmupSeconds, durationSeconds);
+            } finally {
+                if (app != null) {
+                    app.close();
+                }
+            }
+        }
+    }
+
+    private void run(int clients, int warmupSeconds, int durationSeconds) throws Exception {
+        authenticate();
+        List<Long> sessions = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            sessions.add(createSession("Load test " + i));
+        }
+
+        System.out.printf("clients=%d warmup=%ds duration=%ds mix=%s target=%s%n",
+                clients, warmupSeconds, durationSeconds, mix, baseUrl);
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long sessionId : sessions) {
+                users.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        runOnce(pickWorkload(), sessionId);
+                    }
+                });
+            }
+
+            TimeUnit.NANOSECONDS.sleep(warmupEnd - System.nanoTime());
+            measuring = true;
+            TimeUnit.NANOSECONDS.sleep(end - System.nanoTime());
+            measuring = false;
+        }
+
+        report(durationSeconds);
+    }
+
+    private void runOnce(String workload, Long sessionId) {
+        long start = System.nanoTime();
+        long[] firstEvent = {0};
+        int status;
+        try {
+            HttpRequest request = buildRequest(workload, sessionId);
+            if (workload.endsWith("-stream")) {
+                HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                status = response.statusCode();
+                status = readEvents(response.body(), status, () -> firstEvent[0] = System.nanoTime());
+            } else {
+                status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            status = -1;
+        }
+
+        if (measuring) {
+            long now = System.nanoTime();
+            stats.get(workload).record(status, now - start);
+            if (firstEvent[0] != 0) {
+                stats.get(workload + " (first event)").record(status, firstEvent[0] - start);
+            }
+        }
+    }
+
+    // Reads the SSE stream to the end; an error event turns the request into a failure
+    private static int readEvents(InputStream body, int status, Runnable onFirstEvent) throws Exception {
+        boolean first = true;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("event:")) {
+                    if (first) {
+                        onFirstEvent.run();
+                        first = false;
+                    }
+                    if (line.substring(6).trim().equals("error")) {
+                        status = 500;
+                    }
+                }
+            }
+        }
+        return status;
+    }
+
+    private HttpRequest buildRequest(String workload, Long sessionId) {
+        String prompt = nextPrompt();
+        return switch (workload) {
+            case "chat" -> form("/api/ai/chat", prompt, sessionId);
+            case "chat-stream" -> form("/api/ai/chat/stream", prompt, sessionId);
+            case "speech" -> form("/api/ai/chat/speech", prompt, sessionId);
+            case "speech-stream" -> form("/api/ai/chat/speech/stream", prompt, sessionId);
+            case "voice" -> upload("/api/ai/chat/voice", sessionId);
+            case "voice-stream" -> upload("/api/ai/chat/voice/stream", sessionId);
+            default -> throw new IllegalArgumentException("Unknown workload: " + workload);
+        };
+    }
+
+    private HttpRequest form(String path, String prompt, Long sessionId) {
+        String body = "prompt=" + URLEncoder.encode(prompt, StandardCharsets.UTF_8) + "&sessionId=" + sessionId;
+        return authorized(path)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest upload(String path, Long sessionId) {
+        MultipartBodyPublisher multipart = new MultipartBodyPublisher();
+        return authorized(path + "?sessionId=" + sessionId)
+                .header("Content-Type", multipart.getContentType())
+                .POST(multipart.filePart("audio", "utterance.wav", "audio/wav",
+                        () -> new ByteArrayInputStream(utterance), utterance.length))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private String nextPrompt() {
+        long n = promptSequence.incrementAndGet();
+        long topic = distinctPrompts > 0 ? n % distinctPrompts : n;
+        return "Tell me one interesting fact about topic number " + topic;
+    }
+
+    private String pickWorkload() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void authenticate() throws Exception {
+        String username = "load-" + UUID.randomUUID().toString().substring(0, 8);
+        String password = "load-test-password";
+        post("/api/auth/register", Map.of("username", username, "password", password,
+                "email", username + "@example.com"));
+        token = post("/api/auth/login", Map.of("username", username, "password", password)).path("token").asText();
+    }
+
+    private Long createSession(String title) throws Exception {
+        return post("/api/chat/sessions", Map.of("title", title)).path("id").asLong();
+    }
+
+    private JsonNode post(String path, Map<String, String> body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(path + " failed with " + response.statusCode() + ": "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return MAPPER.readTree(response.body());
+    }
+
+    private void report(int durationSeconds) {
+        System.out.printf("%n%-28s %8s %7s %6s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "shed", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        stats.forEach((endpoint, endpointStats) -> {
+            Histogram histogram = endpointStats.latencies;
+            System.out.printf("%-28s %8d %7d %6d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint,
+                    histogram.getTotalCount(),
+                    endpointStats.errors.sum(),
+                    endpointStats.shed.sum(),
+                    histogram.getTotalCount() / (double) durationSeconds,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(95)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getMaxValue()));
+        });
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            mix.put(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+        }
+        return mix;
+    }
+
+    private static LatencyDistribution distribution(String property, String defaultSpec) {
+        return LatencyDistribution.parse(System.getProperty(property, defaultSpec));
+    }
+
+    private static class EndpointStats {
+        // Latencies of successful requests, 1 µs to 10 min at three significant digits
+        private final Histogram latencies = new ConcurrentHistogram(1_000, TimeUnit.MINUTES.toNanos(10), 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+
+        private void record(int status, long nanos) {
+            if (status == 429 || status == 503) {
+                shed.increment();
+            } else if (status / 100 != 2) {
+                errors.increment();
+            } else {
+                latencies.recordValue(Math.min(nanos, latencies.getHighestTrackableValue()));
+            }
+        }
+    }
+}
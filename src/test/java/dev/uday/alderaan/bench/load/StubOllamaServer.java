@@ -0,0 +1,109 @@
+package dev.uday.alderaan.bench.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+
+// Mimics Ollama's /api/chat, both as a single JSON reply and as an NDJSON token stream
+public class StubOllamaServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String[] WORDS = {"the", "assistant", "is", "answering", "your", "question", "with", "a",
+            "short", "and", "friendly", "reply"};
+
+    private final HttpServer server;
+    private final LatencyDistribution timeToFirstToken;
+    private final LatencyDistribution interTokenLatency;
+    private final int tokensPerReply;
+    private final Semaphore capacity;
+
+    public StubOllamaServer(LatencyDistribution timeToFirstToken, LatencyDistribution interTokenLatency,
+                            int tokensPerReply, int parallel) throws IOException {
+        this.timeToFirstToken = timeToFirstToken;
+        this.interTokenLatency = interTokenLatency;
+        this.tokensPerReply = tokensPerReply;
+        this.capacity = new Semaphore(parallel, true);
+        this.server = StubServers.create();
+        server.createContext("/api/chat", this::chat);
+        server.start();
+    }
+
+    public String getUrl() {
+        return StubServers.url(server);
+    }
+
+    private void chat(HttpExchange exchange) throws IOException {
+        JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+        String model = request.path("model").asText("stub");
+        boolean stream = request.path("stream").asBoolean(false);
+
+        StubServers.withCapacity(capacity, () -> {
+            if (stream) {
+                streamReply(exchange, model);
+            } else {
+                timeToFirstToken.sleep();
+                StringBuilder content = new StringBuilder();
+                for (int i = 0; i < tokensPerReply; i++) {
+                    interTokenLatency.sleep();
+                    content.append(token(i));
+                }
+                byte[] body = MAPPER.writeValueAsBytes(chunk(model, content.toString(), true));
+                StubServers.respond(exchange, 200, "application/json", body);
+            }
+        });
+    }
+
+    private void streamReply(HttpExchange exchange, String model) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            timeToFirstToken.sleep();
+            for (int i = 0; i < tokensPerReply; i++) {
+                if (i > 0) {
+                    interTokenLatency.sleep();
+                }
+                writeLine(out, chunk(model, token(i), false));
+            }
+            writeLine(out, chunk(model, "", true));
+        }
+    }
+
+    // Words with a full stop every eight tokens, so replies split into sentences for streamed TTS
+    private static String token(int index) {
+        String word = WORDS[index % WORDS.length];
+        String separator = (index + 1) % 8 == 0 ? ". " : " ";
+        return (index % 8 == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word) + separator;
+    }
+
+    private static ObjectNode chunk(String model, String content, boolean done) {
+        ObjectNode chunk = MAPPER.createObjectNode();
+        chunk.put("model", model);
+        chunk.put("created_at", Instant.now().toString());
+        chunk.putObject("message").put("role", "assistant").put("content", content);
+        chunk.put("done", done);
+        if (done) {
+            chunk.put("done_reason", "stop");
+            chunk.put("prompt_eval_count", 0);
+            chunk.put("eval_count", 0);
+        }
+        return chunk;
+    }
+
+    private static void writeLine(OutputStream out, ObjectNode chunk) throws IOException {
+        out.write(MAPPER.writeValueAsBytes(chunk));
+        out.write('\n');
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
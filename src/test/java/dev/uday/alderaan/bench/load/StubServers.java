@@ -0,0 +1,67 @@
+package dev.uday.alderaan.bench.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+final class StubServers {
+
+    private StubServers() {
+    }
+
+    static HttpServer create() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        return server;
+    }
+
+    static String url(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Models a backend that only works on a fixed number of requests at once
+    static void withCapacity(Semaphore capacity, InterruptibleWork work) throws IOException {
+        try {
+            capacity.acquire();
+            try {
+                work.run();
+            } finally {
+                capacity.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    // 16-bit mono PCM silence
+    static byte[] silentWav(long durationMs, int sampleRate) {
+        int dataSize = (int) (sampleRate * durationMs / 1000) * 2;
+        ByteBuffer wav = ByteBuffer.allocate(44 + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes()).putInt(36 + dataSize).put("WAVE".getBytes());
+        wav.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(sampleRate).putInt(sampleRate * 2).putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes()).putInt(dataSize);
+        return wav.array();
+    }
+
+    @FunctionalInterface
+    interface InterruptibleWork {
+        void run() throws IOException, InterruptedException;
+    }
+}
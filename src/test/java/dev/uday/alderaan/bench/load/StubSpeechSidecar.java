@@ -0,0 +1,92 @@
+package dev.uday.alderaan.bench.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+// Mimics the Python sidecar routes: /tts, /tts/batch, /stt and /health
+public class StubSpeechSidecar implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int SAMPLE_RATE = 22050;
+    // Roughly how long a synthesized character takes to speak
+    private static final long SPOKEN_MS_PER_CHAR = 60;
+
+    private final HttpServer server;
+    private final LatencyDistribution ttsLatency;
+    private final long ttsPerClipMs;
+    private final LatencyDistribution sttLatency;
+    private final Semaphore ttsCapacity;
+    private final Semaphore sttCapacity;
+    private final String transcript;
+
+    public StubSpeechSidecar(LatencyDistribution ttsLatency, long ttsPerClipMs, int ttsParallel,
+                             LatencyDistribution sttLatency, int sttParallel, String transcript) throws IOException {
+        this.ttsLatency = ttsLatency;
+        this.ttsPerClipMs = ttsPerClipMs;
+        this.sttLatency = sttLatency;
+        this.ttsCapacity = new Semaphore(ttsParallel, true);
+        this.sttCapacity = new Semaphore(sttParallel, true);
+        this.transcript = transcript;
+        this.server = StubServers.create();
+        server.createContext("/tts", this::tts);
+        server.createContext("/stt", this::stt);
+        server.createContext("/health", exchange ->
+                StubServers.respond(exchange, 200, "application/json", "{\"status\":\"ok\"}".getBytes()));
+        server.start();
+    }
+
+    public String getUrl() {
+        return StubServers.url(server);
+    }
+
+    private void tts(HttpExchange exchange) throws IOException {
+        JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+
+        if (exchange.getRequestURI().getPath().equals("/tts/batch")) {
+            List<String> texts = new ArrayList<>();
+            request.path("texts").forEach(text -> texts.add(text.asText()));
+            StubServers.withCapacity(ttsCapacity, () -> {
+                ttsLatency.sleep();
+                Thread.sleep(ttsPerClipMs * texts.size());
+                List<String> clips = texts.stream()
+                        .map(text -> Base64.getEncoder().encodeToString(clip(text)))
+                        .toList();
+                StubServers.respond(exchange, 200, "application/json", MAPPER.writeValueAsBytes(Map.of("clips", clips)));
+            });
+        } else {
+            String text = request.path("text").asText();
+            StubServers.withCapacity(ttsCapacity, () -> {
+                ttsLatency.sleep();
+                Thread.sleep(ttsPerClipMs);
+                StubServers.respond(exchange, 200, "audio/wav", clip(text));
+            });
+        }
+    }
+
+    private void stt(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        StubServers.withCapacity(sttCapacity, () -> {
+            sttLatency.sleep();
+            StubServers.respond(exchange, 200, "application/json", MAPPER.writeValueAsBytes(Map.of("text", transcript)));
+        });
+    }
+
+    private static byte[] clip(String text) {
+        return StubServers.silentWav(Math.min(30000, text.length() * SPOKEN_MS_PER_CHAR), SAMPLE_RATE);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
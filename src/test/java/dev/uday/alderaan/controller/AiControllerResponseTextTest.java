@@ -0,0 +1,144 @@
+package dev.uday.alderaan.controller;
+
+import dev.uday.alderaan.dto.TurnResult;
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import dev.uday.alderaan.model.User;
+import dev.uday.alderaan.service.AiService;
+import dev.uday.alderaan.service.AudioBlobStore;
+import dev.uday.alderaan.service.AudioTranscoder;
+import dev.uday.alderaan.service.ChatService;
+import dev.uday.alderaan.service.ChatTurnService;
+import dev.uday.alderaan.service.SpeechRecognitionService;
+import dev.uday.alderaan.service.UserService;
+import dev.uday.alderaan.util.AudioEncoding;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class AiControllerResponseTextTest {
+
+    private static final int MAX_HEADER_LENGTH = 4096;
+
+    private final ChatTurnService chatTurnService = mock(ChatTurnService.class);
+    private final ExecutorService turnExecutor = Executors.newCachedThreadPool();
+    private final ChatSession session = new ChatSession();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        User alice = user(1L, "alice");
+        session.setId(1L);
+        session.setUser(alice);
+        ChatService chatService = mock(ChatService.class);
+        UserService userService = mock(UserService.class);
+        when(userService.findByUsername("alice")).thenReturn(alice);
+        when(userService.findByUsername("mallory")).thenReturn(user(2L, "mallory"));
+        AudioTranscoder audioTranscoder = mock(AudioTranscoder.class);
+        when(chatService.getChatSessionById(1L)).thenReturn(Optional.of(session));
+        when(audioTranscoder.encoding(any())).thenReturn(AudioEncoding.WAV);
+        when(audioTranscoder.encode(any(byte[].class), eq(AudioEncoding.WAV))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        AiController controller = new AiController(mock(AiService.class), mock(AudioBlobStore.class), audioTranscoder,
+                chatTurnService, mock(SpeechRecognitionService.class), chatService, userService,
+                turnExecutor, Schedulers.immediate());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        turnExecutor.shutdownNow();
+    }
+
+    @Test
+    void shortReplyIsSentWhole() throws Exception {
+        MockHttpServletResponse response = speak("Hello there, how are you?");
+
+        assertThat(decoded(response)).isEqualTo("Hello there, how are you?");
+        assertThat(response.getHeader("X-AI-Response-Text-Truncated")).isNull();
+    }
+
+    @Test
+    void longReplyIsCutToTheHeaderLimit() throws Exception {
+        String reply = "word ".repeat(2000);
+
+        MockHttpServletResponse response = speak(reply);
+
+        assertThat(response.getHeader("X-AI-Response-Text")).hasSizeLessThanOrEqualTo(MAX_HEADER_LENGTH);
+        assertThat(reply).startsWith(decoded(response));
+        assertThat(response.getHeader("X-AI-Response-Text-Truncated")).isEqualTo("true");
+    }
+
+    @Test
+    void multiByteReplyIsCutOnACharacterBoundary() throws Exception {
+        // Four UTF-8 bytes, twelve encoded characters and two Java chars each
+        String reply = "🎤".repeat(1000);
+
+        MockHttpServletResponse response = speak(reply);
+
+        String header = response.getHeader("X-AI-Response-Text");
+        assertThat(header).hasSizeLessThanOrEqualTo(MAX_HEADER_LENGTH).hasSize(341 * 12);
+        assertThat(decoded(response)).isEqualTo("🎤".repeat(341));
+    }
+
+    @Test
+    void otherUsersSessionIsNeitherUsedNorRevealed() throws Exception {
+        MockHttpServletResponse response = speak("mallory", "Hello");
+
+        assertThat(response.getStatus()).isEqualTo(500);
+        assertThat(response.getHeader("X-AI-Response-Text")).isNull();
+        verify(chatTurnService, never()).speechTurn(any(), any(), any());
+    }
+
+    private MockHttpServletResponse speak(String reply) throws Exception {
+        return speak("alice", reply);
+    }
+
+    private MockHttpServletResponse speak(String username, String reply) throws Exception {
+        when(chatTurnService.speechTurn(session, ChatMessage.MessageType.USER_TEXT, "hi"))
+                .thenReturn(new TurnResult(reply, new byte[]{1, 2, 3}));
+
+        MvcResult started = mockMvc.perform(post("/api/ai/chat/speech")
+                        .param("prompt", "hi")
+                        .param("sessionId", "1")
+                        .principal(new UsernamePasswordAuthenticationToken(username, null, List.of())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+
+    private static String decoded(MockHttpServletResponse response) {
+        return URLDecoder.decode(response.getHeader("X-AI-Response-Text"), StandardCharsets.UTF_8);
+    }
+}
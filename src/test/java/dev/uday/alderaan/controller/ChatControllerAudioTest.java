@@ -0,0 +1,165 @@
+package dev.uday.alderaan.controller;
+
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import dev.uday.alderaan.model.User;
+import dev.uday.alderaan.service.AudioBlobStore;
+import dev.uday.alderaan.service.ChatService;
+import dev.uday.alderaan.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ChatControllerAudioTest {
+
+    private static final String URL = "/api/chat/messages/5/audio";
+
+    @TempDir
+    Path storeDir;
+
+    private final byte[] audio = new byte[100];
+    private String etag;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < audio.length; i++) {
+            audio[i] = (byte) i;
+        }
+        AudioBlobStore audioBlobStore = new AudioBlobStore(storeDir.toString());
+        String key = audioBlobStore.store(audio, "wav");
+        etag = "\"" + audioBlobStore.hash(key) + "\"";
+
+        User owner = user(1L, "alice");
+        ChatSession session = new ChatSession(owner, "Chat");
+        session.setId(10L);
+        ChatMessage message = new ChatMessage(session, ChatMessage.MessageType.AI_AUDIO, "Hello");
+        message.setId(5L);
+        message.setAudioFilePath(key);
+
+        ChatService chatService = mock(ChatService.class);
+        UserService userService = mock(UserService.class);
+        when(chatService.getMessage(5L)).thenReturn(Optional.of(message));
+        when(chatService.getChatSessionById(10L)).thenReturn(Optional.of(session));
+        when(userService.findByUsername("alice")).thenReturn(owner);
+        when(userService.findByUsername("mallory")).thenReturn(user(2L, "mallory"));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new ChatController(chatService, audioBlobStore, userService)).build();
+    }
+
+    @Test
+    void servesTheWholeBlobWithValidators() throws Exception {
+        mockMvc.perform(as("alice", get(URL)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "audio/wav"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(content().bytes(audio));
+    }
+
+    @Test
+    void otherUsersCannotFetchTheAudio() throws Exception {
+        mockMvc.perform(as("mallory", get(URL)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        MvcResult result = mockMvc.perform(as("alice", get(URL).header(HttpHeaders.IF_NONE_MATCH, etag)))
+                .andExpect(status().isNotModified())
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void byteRangeIsPartialContent() throws Exception {
+        mockMvc.perform(as("alice", get(URL).header(HttpHeaders.RANGE, "bytes=10-19")))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/100"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(Arrays.copyOfRange(audio, 10, 20)));
+    }
+
+    @Test
+    void suffixRangeServesTheTail() throws Exception {
+        mockMvc.perform(as("alice", get(URL).header(HttpHeaders.RANGE, "bytes=-5")))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 95-99/100"))
+                .andExpect(content().bytes(Arrays.copyOfRange(audio, 95, 100)));
+    }
+
+    @Test
+    void unsatisfiableRangeIs416() throws Exception {
+        mockMvc.perform(as("alice", get(URL).header(HttpHeaders.RANGE, "bytes=200-")))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"));
+    }
+
+    @Test
+    void matchingIfRangeServesTheRange() throws Exception {
+        mockMvc.perform(as("alice", get(URL).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, etag)))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(audio, 0, 10)));
+    }
+
+    @Test
+    void staleIfRangeServesTheWholeBlob() throws Exception {
+        mockMvc.perform(as("alice", get(URL).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"stale\"")))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(audio));
+    }
+
+    @Test
+    void severalRangesServeTheWholeBlob() throws Exception {
+        mockMvc.perform(as("alice", get(URL).header(HttpHeaders.RANGE, "bytes=0-9,20-29")))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(audio));
+    }
+
+    @Test
+    void tomcatSendfileIsHandedTheFileInsteadOfTheBody() throws Exception {
+        MvcResult result = mockMvc.perform(as("alice", get(URL)
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE)))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(result.getRequest().getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(10L);
+        assertThat(result.getRequest().getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(20L);
+        assertThat(Path.of((String) result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename")))
+                .hasBinaryContent(audio);
+    }
+
+    private static MockHttpServletRequestBuilder as(String username, MockHttpServletRequestBuilder request) {
+        return request.principal(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,89 @@
+package dev.uday.alderaan.controller;
+
+import dev.uday.alderaan.service.AudioTranscoder;
+import dev.uday.alderaan.service.SpeechSynthesisService;
+import dev.uday.alderaan.service.TtsAudioCache;
+import dev.uday.alderaan.service.TurnMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SpeechSynthesisControllerTest {
+
+    @TempDir
+    Path dir;
+
+    private final SpeechSynthesisService speechSynthesisService = mock(SpeechSynthesisService.class);
+    private final byte[] audio = {1, 2, 3, 4, 5, 6};
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        AudioTranscoder audioTranscoder = new AudioTranscoder(new TurnMetrics(new SimpleMeterRegistry(), "test"),
+                true, 16000, 16000, "wav");
+        mockMvc = MockMvcBuilders.standaloneSetup(new SpeechSynthesisController(speechSynthesisService, audioTranscoder))
+                .build();
+    }
+
+    @Test
+    void heapClipIsWrittenAsTheBody() throws Exception {
+        when(speechSynthesisService.synthesizeClip("hi")).thenReturn(new TtsAudioCache.Clip(audio, null, audio.length));
+
+        mockMvc.perform(post("/api/speech/synthesize").param("text", "hi"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "audio/wav"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, audio.length))
+                .andExpect(content().bytes(audio));
+    }
+
+    @Test
+    void diskClipIsHandedToTomcatSendfile() throws Exception {
+        Path file = Files.write(dir.resolve("clip.wav"), audio);
+        when(speechSynthesisService.synthesizeClip("hi")).thenReturn(new TtsAudioCache.Clip(null, file, audio.length));
+
+        MvcResult result = mockMvc.perform(post("/api/speech/synthesize").param("text", "hi")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, audio.length))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEmpty();
+        assertThat(result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"))
+                .isEqualTo(file.toAbsolutePath().toString());
+        assertThat(result.getRequest().getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo((long) audio.length);
+    }
+
+    @Test
+    void diskClipIsTransferredWithoutSendfile() throws Exception {
+        Path file = Files.write(dir.resolve("clip.wav"), audio);
+        when(speechSynthesisService.synthesizeClip("hi")).thenReturn(new TtsAudioCache.Clip(null, file, audio.length));
+
+        mockMvc.perform(post("/api/speech/synthesize").param("text", "hi"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(audio));
+    }
+
+    @Test
+    void failedSynthesisIsAServerError() throws Exception {
+        when(speechSynthesisService.synthesizeClip("hi")).thenReturn(new TtsAudioCache.Clip(new byte[0], null, 0));
+
+        mockMvc.perform(post("/api/speech/synthesize").param("text", "hi"))
+                .andExpect(status().isInternalServerError());
+    }
+}
@@ -0,0 +1,73 @@
+package dev.uday.alderaan.model;
+
+import dev.uday.alderaan.security.PrincipalCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class UserCacheInvalidationListenerTest {
+
+    private final PrincipalCache principalCache = mock(PrincipalCache.class);
+    private final UserCacheInvalidationListener listener = new UserCacheInvalidationListener(principalCache);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictsOnlyOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.invalidate(user("alice"));
+        verify(principalCache, never()).invalidate("alice");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(principalCache).invalidate("alice");
+    }
+
+    @Test
+    void rolledBackChangeLeavesTheCacheAlone() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.invalidate(user("alice"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(principalCache, never()).invalidate("alice");
+    }
+
+    @Test
+    void evictsAtOnceOutsideATransaction() {
+        listener.invalidate(user("alice"));
+
+        verify(principalCache).invalidate("alice");
+    }
+
+    @Test
+    void renameEvictsTheOldAndTheNewUsername() {
+        User user = user("alice");
+        listener.remember(user);
+        user.setUsername("alicia");
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.invalidate(user);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(principalCache).invalidate("alice");
+        verify(principalCache).invalidate("alicia");
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,64 @@
+package dev.uday.alderaan.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AudioBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    private AudioBlobStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new AudioBlobStore(root.toString());
+    }
+
+    @Test
+    void uploadIsStoredUnderItsContentHash() throws Exception {
+        byte[] audio = "RIFF....WAVE".getBytes();
+
+        String key = store.store(new MockMultipartFile("audio", "Clip.WAV", "audio/wav", audio));
+
+        assertThat(key).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(audio)) + ".wav");
+        assertThat(store.find(key)).hasValueSatisfying(path -> assertThat(path).hasBinaryContent(audio));
+    }
+
+    @Test
+    void identicalAudioIsStoredOnceAndLeavesNoTempFiles() throws Exception {
+        byte[] audio = {1, 2, 3, 4};
+
+        String first = store.store(new MockMultipartFile("audio", "a.wav", "audio/wav", audio));
+        String second = store.store(audio, "wav");
+
+        assertThat(second).isEqualTo(first);
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).containsExactly(store.find(first).orElseThrow());
+        }
+    }
+
+    @Test
+    void unknownExtensionsAreStoredAsBinary() throws Exception {
+        String key = store.store(new byte[]{9}, "../x");
+
+        assertThat(key).endsWith(".bin");
+        assertThat(store.contentType(key).toString()).isEqualTo("application/octet-stream");
+    }
+
+    @Test
+    void keysThatAreNotHashesAreNeverResolved() {
+        assertThat(store.find("../../etc/passwd")).isEmpty();
+        assertThat(store.find(null)).isEmpty();
+    }
+}
@@ -0,0 +1,80 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.util.WavFiles;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AudioTranscoderTest {
+
+    private final AudioTranscoder audioTranscoder = new AudioTranscoder(
+            new TurnMetrics(new SimpleMeterRegistry(), "test"), true, 16000, 16000, "wav");
+
+    @Test
+    void downsampledUploadStreamsExactlyTheDeclaredSize() throws Exception {
+        byte[] upload = tone(48000, 2, 48000);
+
+        AudioTranscoder.NormalizedUpload normalized = audioTranscoder.normalizeForStt(() -> new ByteArrayInputStream(upload));
+        byte[] wav = readAll(normalized);
+
+        assertThat(wav).hasSize((int) normalized.size());
+        WavFiles.Header header = WavFiles.readHeader(new ByteArrayInputStream(wav));
+        assertThat(header).isEqualTo(new WavFiles.Header(WavFiles.FORMAT_PCM, 1, 16000, 16, 2, 32000));
+    }
+
+    @Test
+    void lowRateUploadIsDownmixedButNotUpsampled() throws Exception {
+        byte[] upload = tone(8000, 2, 8000);
+
+        AudioTranscoder.NormalizedUpload normalized = audioTranscoder.normalizeForStt(() -> new ByteArrayInputStream(upload));
+        byte[] wav = readAll(normalized);
+
+        assertThat(WavFiles.readHeader(new ByteArrayInputStream(wav)))
+                .isEqualTo(new WavFiles.Header(WavFiles.FORMAT_PCM, 1, 8000, 16, 2, 16000));
+        assertThat(wav.length).isLessThan(upload.length);
+    }
+
+    @Test
+    void monoPcmAtOrBelowTheTargetRateIsSentAsIs() throws Exception {
+        assertThat(audioTranscoder.normalizeForStt(() -> new ByteArrayInputStream(tone(16000, 1, 1600)))).isNull();
+        assertThat(audioTranscoder.normalizeForStt(() -> new ByteArrayInputStream(tone(8000, 1, 800)))).isNull();
+        assertThat(audioTranscoder.normalizeForStt(() -> new ByteArrayInputStream(new byte[]{1, 2, 3}))).isNull();
+    }
+
+    @Test
+    void truncatedUploadIsPaddedToTheDeclaredSize() throws Exception {
+        byte[] full = tone(32000, 2, 32000);
+        byte[] upload = Arrays.copyOf(full, full.length / 2);
+
+        AudioTranscoder.NormalizedUpload normalized = audioTranscoder.normalizeForStt(() -> new ByteArrayInputStream(upload));
+        byte[] wav = readAll(normalized);
+
+        assertThat(wav).hasSize((int) normalized.size());
+        assertThat(Arrays.copyOfRange(wav, wav.length - 1000, wav.length)).containsOnly(0);
+    }
+
+    private static byte[] readAll(AudioTranscoder.NormalizedUpload normalized) throws Exception {
+        try (InputStream in = normalized.audio().getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] tone(int sampleRate, int channels, int frames) {
+        ByteBuffer pcm = ByteBuffer.allocate(frames * channels * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            short sample = (short) (8000 * Math.sin(2 * Math.PI * 440 * i / sampleRate));
+            for (int channel = 0; channel < channels; channel++) {
+                pcm.putShort(sample);
+            }
+        }
+        return WavFiles.write(WavFiles.FORMAT_PCM, channels, sampleRate, sampleRate * channels * 2, channels * 2, 16,
+                new byte[0], frames, pcm.array());
+    }
+}
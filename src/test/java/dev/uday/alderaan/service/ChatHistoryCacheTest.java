@@ -0,0 +1,133 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.HistoryMessage;
+import dev.uday.alderaan.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatHistoryCacheTest {
+
+    private final ChatHistoryCache cache = new ChatHistoryCache(4, 100, 30);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void appendedMessagesJoinTheCachedHistory() {
+        load(message(1), message(2));
+
+        cache.append(1L, message(3));
+
+        assertThat(ids(history())).containsExactly(1L, 2L, 3L);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void ringKeepsOnlyTheNewestMessages() {
+        load(message(1), message(2), message(3));
+
+        cache.append(1L, message(4));
+        cache.append(1L, message(5));
+        cache.append(1L, message(6));
+
+        assertThat(ids(history())).containsExactly(3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void outOfOrderAppendsAreSortedIntoPlace() {
+        load(message(1));
+
+        cache.append(1L, message(4));
+        cache.append(1L, message(2));
+        cache.append(1L, message(3));
+
+        assertThat(ids(history())).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void lateAppendOlderThanTheWholeRingIsTrimmedAway() {
+        load(message(5), message(6), message(7), message(8));
+
+        cache.append(1L, message(4));
+
+        assertThat(ids(history())).containsExactly(5L, 6L, 7L, 8L);
+    }
+
+    @Test
+    void duplicateAppendsAreIgnored() {
+        load(message(1), message(2));
+
+        cache.append(1L, message(2));
+        cache.append(1L, message(2));
+
+        assertThat(ids(history())).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void appendToAnUncachedSessionIsLeftForTheNextLoad() {
+        cache.append(1L, message(1));
+
+        load(message(1), message(2));
+
+        assertThat(ids(history())).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void summaryDropsTheMessagesItCoversAndRejectsTheirAppends() {
+        load(message(1), message(2), message(3));
+
+        cache.updateSummary(1L, "earlier talk", 2L);
+        cache.append(1L, message(2));
+
+        ChatHistory history = history();
+        assertThat(history.getSummary()).isEqualTo("earlier talk");
+        assertThat(ids(history)).containsExactly(3L);
+    }
+
+    @Test
+    void olderSummaryNeverReplacesANewerOne() {
+        load(message(1), message(2), message(3));
+
+        cache.updateSummary(1L, "newer", 2L);
+        cache.updateSummary(1L, "older", 1L);
+
+        assertThat(history().getSummary()).isEqualTo("newer");
+    }
+
+    @Test
+    void invalidatedSessionIsReloaded() {
+        load(message(1));
+
+        cache.invalidate(1L);
+        history();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private void load(HistoryMessage... messages) {
+        cache.getHistory(1L, loader(List.of(messages)));
+    }
+
+    private ChatHistory history() {
+        return cache.getHistory(1L, loader(List.of()));
+    }
+
+    private Function<Long, ChatHistory> loader(List<HistoryMessage> messages) {
+        return sessionId -> {
+            loads.incrementAndGet();
+            return new ChatHistory(sessionId, null, null, messages);
+        };
+    }
+
+    private static HistoryMessage message(long id) {
+        return new HistoryMessage(id, ChatMessage.MessageType.USER_TEXT, "message " + id);
+    }
+
+    private static List<Long> ids(ChatHistory history) {
+        return history.getMessages().stream().map(HistoryMessage::getId).toList();
+    }
+}
@@ -0,0 +1,162 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatMessageWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ChatHistoryCache chatHistoryCache = mock(ChatHistoryCache.class);
+    // Ids of every insert attempt, one list per statement batch
+    private final List<List<Long>> attempts = new CopyOnWriteArrayList<>();
+    private final ChatSession session = new ChatSession();
+
+    private Function<List<Long>, RuntimeException> database = ids -> null;
+    private ChatMessageWriter writer;
+    private boolean started;
+
+    @BeforeEach
+    void setUp() {
+        session.setId(7L);
+        AtomicLong sequence = new AtomicLong(1);
+        when(jdbcTemplate.queryForObject("SELECT nextval('chat_messages_seq')", Long.class))
+                .thenAnswer(invocation -> sequence.getAndAdd(ChatMessage.ID_ALLOCATION_SIZE));
+        when(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM chat_messages", Long.class)).thenReturn(0L);
+        when(jdbcTemplate.queryForMap("SELECT last_value, is_called FROM chat_messages_seq"))
+                .thenReturn(Map.of("last_value", 1L, "is_called", false));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<ChatMessage> batch = invocation.getArgument(1);
+                    List<Long> ids = batch.stream().map(ChatMessage::getId).toList();
+                    attempts.add(ids);
+                    RuntimeException failure = database.apply(ids);
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return new int[][]{};
+                });
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        writer = new ChatMessageWriter(jdbcTemplate, transactionManager, chatHistoryCache,
+                new TurnMetrics(new SimpleMeterRegistry(), "test"), 100, 10, 0, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (started) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void queuedMessagesAreWrittenInOneBatch() throws Exception {
+        start();
+        ChatMessage a = write("a");
+        ChatMessage b = write("b");
+
+        awaitWritten(a, b);
+
+        assertThat(attempts).contains(List.of(a.getId(), b.getId()));
+    }
+
+    @Test
+    void integrityViolationDropsOnlyTheOffendingRow() {
+        database = ids -> ids.contains(2L) ? new DataIntegrityViolationException("session deleted") : null;
+        ChatMessage good = write("good");
+        ChatMessage bad = write("bad");
+        ChatMessage other = write("other");
+
+        writer.flush();
+
+        assertThat(attempts).containsExactly(
+                List.of(good.getId(), bad.getId(), other.getId()),
+                List.of(good.getId()), List.of(bad.getId()), List.of(other.getId()));
+        assertThat(writer.pendingMessages(7L)).isEmpty();
+        verify(chatHistoryCache).invalidate(7L);
+    }
+
+    @Test
+    void transientFailureKeepsTheBatchAndRetriesIt() throws Exception {
+        database = ids -> attempts.size() == 1 ? new TransientDataAccessResourceException("connection reset") : null;
+        start();
+        ChatMessage message = write("hello");
+
+        awaitWritten(message);
+
+        assertThat(attempts).containsExactly(List.of(message.getId()), List.of(message.getId()));
+        verify(chatHistoryCache, never()).invalidate(7L);
+    }
+
+    @Test
+    void unreachableDatabaseKeepsMessagesReadableWhileRetrying() {
+        when(transactionManager.getTransaction(any())).thenThrow(new CannotCreateTransactionException("pool exhausted"));
+        ChatMessage message = write("hello");
+
+        writer.flush();
+
+        assertThat(writer.pendingMessage(message.getId())).contains(message);
+        verify(chatHistoryCache, never()).invalidate(7L);
+    }
+
+    @Test
+    void batchIsDroppedOnceItsRetriesRunOut() throws Exception {
+        database = ids -> new TransientDataAccessResourceException("database down");
+        start();
+        ChatMessage message = write("hello");
+
+        awaitWritten(message);
+
+        // The first attempt and two retries
+        assertThat(attempts).hasSize(3);
+        verify(chatHistoryCache).invalidate(7L);
+    }
+
+    // Tests that flush on their own thread leave the background writer off
+    private void start() {
+        writer.start();
+        started = true;
+    }
+
+    private ChatMessage write(String content) {
+        return writer.write(session, ChatMessage.MessageType.USER_TEXT, content, null);
+    }
+
+    // Written or given up on: either way no longer pending
+    private void awaitWritten(ChatMessage... messages) throws InterruptedException {
+        for (int i = 0; i < 200 && !writer.pendingMessages(7L).isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        for (ChatMessage message : messages) {
+            assertThat(writer.pendingMessage(message.getId())).isEmpty();
+        }
+    }
+}
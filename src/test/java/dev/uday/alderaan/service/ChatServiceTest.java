@@ -0,0 +1,44 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.dto.HistoryMessage;
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import dev.uday.alderaan.repository.ChatMessageRepository;
+import dev.uday.alderaan.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatServiceTest {
+
+    private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+    private final ChatMessageWriter chatMessageWriter = mock(ChatMessageWriter.class);
+    private final ChatService chatService = new ChatService(mock(ChatSessionRepository.class), chatMessageRepository,
+            mock(ChatHistoryCache.class), new TurnMetrics(new SimpleMeterRegistry(), "test"), chatMessageWriter);
+    private final ChatSession session = new ChatSession();
+
+    @Test
+    void historyRangeIncludesMessagesTheWriterHasNotCommitted() {
+        session.setId(7L);
+        when(chatMessageWriter.pendingMessages(7L)).thenReturn(List.of(
+                message(3L, "retrying"), message(5L, "already committed"), message(9L, "outside the range")));
+        when(chatMessageRepository.findHistoryRange(7L, 2L, 6L)).thenReturn(List.of(
+                new HistoryMessage(4L, ChatMessage.MessageType.AI_TEXT, "committed"),
+                new HistoryMessage(5L, ChatMessage.MessageType.USER_TEXT, "already committed")));
+
+        List<HistoryMessage> range = chatService.getHistoryRange(7L, 2L, 6L);
+
+        assertThat(range).extracting(HistoryMessage::getId).containsExactly(3L, 4L, 5L);
+    }
+
+    private ChatMessage message(Long id, String content) {
+        ChatMessage message = new ChatMessage(session, ChatMessage.MessageType.USER_TEXT, content);
+        message.setId(id);
+        return message;
+    }
+}
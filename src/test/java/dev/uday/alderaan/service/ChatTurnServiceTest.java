@@ -0,0 +1,118 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.dto.ChatHistory;
+import dev.uday.alderaan.dto.TurnEvent;
+import dev.uday.alderaan.model.ChatMessage;
+import dev.uday.alderaan.model.ChatSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatTurnServiceTest {
+
+    private static final ChatMessage.MessageType USER = ChatMessage.MessageType.USER_AUDIO;
+    private static final ChatMessage.MessageType AI = ChatMessage.MessageType.AI_AUDIO;
+
+    private final AiService aiService = mock(AiService.class);
+    private final SpeechSynthesisService speechSynthesisService = mock(SpeechSynthesisService.class);
+    private final ChatService chatService = mock(ChatService.class);
+    private final AudioBlobStore audioBlobStore = mock(AudioBlobStore.class);
+    private final ChatSession session = new ChatSession();
+
+    private ChatTurnService chatTurnService;
+
+    @BeforeEach
+    void setUp() {
+        session.setId(3L);
+        when(chatService.getRecentHistory(session)).thenReturn(new ChatHistory(3L, null, null, List.of()));
+        when(speechSynthesisService.synthesizeSentence(anyString())).thenReturn(new byte[0]);
+
+        chatTurnService = new ChatTurnService(aiService, speechSynthesisService, chatService,
+                Schedulers.boundedElastic(), audioBlobStore);
+        ReflectionTestUtils.setField(chatTurnService, "ttsStreamConcurrency", 2);
+        ReflectionTestUtils.setField(chatTurnService, "minSentenceLength", 0);
+    }
+
+    @Test
+    void completedTurnIsSavedBeforeTheDoneEvent() {
+        when(aiService.streamTextResponseWithHistory(eq("hi"), any(ChatHistory.class))).thenReturn(Flux.just("Hello", " there"));
+
+        List<TurnEvent> events = chatTurnService.streamSpeechTurn(session, USER, "hi", "upload.wav").collectList().block();
+
+        assertThat(events).last().satisfies(event -> {
+            assertThat(event.getType()).isEqualTo(TurnEvent.Type.DONE);
+            assertThat(event.getText()).isEqualTo("Hello there");
+        });
+        verify(chatService).saveTurn(session, USER, "hi", "upload.wav", AI, "Hello there", null);
+    }
+
+    @Test
+    void completedTurnIsNotSavedOnTheThreadThatCompletedTheStream() {
+        // The reply's last sentence is spoken before generation completes on the client's thread
+        Scheduler client = Schedulers.newSingle("ollama-client");
+        AtomicReference<String> savingThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            savingThread.set(Thread.currentThread().getName());
+            return null;
+        }).when(chatService).saveTurn(any(), any(), any(), any(), any(), any(), any());
+        when(aiService.streamTextResponseWithHistory(eq("hi"), any(ChatHistory.class)))
+                .thenReturn(Flux.just("Hello. ").concatWith(Mono.delay(Duration.ofMillis(200), client).then(Mono.empty())));
+
+        try {
+            chatTurnService.streamSpeechTurn(session, USER, "hi", null).blockLast();
+        } finally {
+            client.dispose();
+        }
+
+        assertThat(savingThread.get()).isNotNull().doesNotStartWith("ollama-client");
+    }
+
+    @Test
+    void disconnectedClientStillGetsThePromptAndPartialReplySaved() {
+        when(aiService.streamTextResponseWithHistory(eq("hi"), any(ChatHistory.class)))
+                .thenReturn(Flux.concat(Flux.just("Half a"), Flux.never()));
+        List<TurnEvent> events = new CopyOnWriteArrayList<>();
+
+        Disposable subscription = chatTurnService.streamSpeechTurn(session, USER, "hi", null).subscribe(events::add);
+        assertThat(events).extracting(TurnEvent::getText).containsExactly("Half a");
+        subscription.dispose();
+
+        verify(chatService, timeout(1000)).saveTurn(session, USER, "hi", null, AI, "Half a", null);
+    }
+
+    @Test
+    void promptIsSavedWhenGenerationFailsBeforeAnyToken() {
+        when(aiService.streamTextResponseWithHistory(eq("hi"), any(ChatHistory.class)))
+                .thenReturn(Flux.error(new IllegalStateException("model crashed")));
+
+        List<TurnEvent> events = chatTurnService.streamSpeechTurn(session, USER, "hi", "upload.wav")
+                .onErrorResume(e -> Flux.empty())
+                .collectList().block();
+
+        assertThat(events).isEmpty();
+        verify(chatService, timeout(1000)).saveAudioMessage(session, USER, "hi", "upload.wav");
+        verify(chatService, never()).saveTurn(any(), any(), any(), any(), any(), any(), isNull());
+    }
+}
@@ -0,0 +1,82 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.config.AsyncConfig;
+import dev.uday.alderaan.dto.ChatHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConversationSummarizerTest {
+
+    private final ChatService chatService = mock(ChatService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ThreadPoolTaskExecutor executor;
+    private ConversationSummarizer summarizer;
+
+    @BeforeEach
+    void setUp() {
+        // The production executor with room for a single queued task
+        AsyncConfig asyncConfig = new AsyncConfig();
+        ReflectionTestUtils.setField(asyncConfig, "summaryQueueCapacity", 1);
+        executor = asyncConfig.historySummaryExecutor();
+        executor.initialize();
+
+        when(chatService.getHistoryRange(7L, null, 12L)).thenReturn(List.of());
+
+        summarizer = new ConversationSummarizer(mock(OllamaChatModel.class), chatService, mock(BackendGuards.class),
+                executor);
+        ReflectionTestUtils.setField(summarizer, "enabled", true);
+        ReflectionTestUtils.setField(summarizer, "batchMessages", 6);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void sessionRejectedByAFullQueueIsSummarizedOnALaterSlide() throws Exception {
+        CountDownLatch busy = new CountDownLatch(1);
+        executor.execute(() -> {
+            busy.countDown();
+            awaitRelease();
+        });
+        busy.await(1, TimeUnit.SECONDS);
+        CountDownLatch drained = new CountDownLatch(1);
+        executor.execute(drained::countDown);
+
+        ChatHistory history = new ChatHistory(7L, null, null, List.of());
+        summarizer.windowSlid(history, 12L, 6);
+        release.countDown();
+        // The queue has room again once the queued task has been taken
+        drained.await(1, TimeUnit.SECONDS);
+        verify(chatService, never()).getHistoryRange(7L, null, 12L);
+
+        summarizer.windowSlid(history, 12L, 6);
+
+        verify(chatService, timeout(1000)).getHistoryRange(7L, null, 12L);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
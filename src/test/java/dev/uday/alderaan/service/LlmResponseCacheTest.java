@@ -0,0 +1,169 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import dev.uday.alderaan.util.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaOptions;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LlmResponseCacheTest {
+
+    private final AtomicInteger generations = new AtomicInteger();
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+    private LlmResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        OllamaChatModel chatModel = mock(OllamaChatModel.class);
+        when(chatModel.getDefaultOptions()).thenReturn(OllamaOptions.builder().model("test").build());
+        cache = new LlmResponseCache(chatModel, new SimpleMeterRegistry(), true, 1 << 20, 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Deadline.clear();
+    }
+
+    @Test
+    void promptsDifferingOnlyInWhitespaceShareAnAnswer() throws Exception {
+        assertThat(cache.getOrGenerate(prompt("What is  HNSW?"), () -> answer("first"))).isEqualTo("first");
+        assertThat(cache.getOrGenerate(prompt(" What is HNSW? "), () -> answer("second"))).isEqualTo("first");
+        assertThat(cache.getOrGenerate(prompt("what is HNSW?"), () -> answer("third"))).isEqualTo("third");
+        assertThat(generations).hasValue(2);
+    }
+
+    @Test
+    void blankAnswersAreNotKept() throws Exception {
+        cache.getOrGenerate(prompt("hi"), () -> answer(" "));
+
+        assertThat(cache.getOrGenerate(prompt("hi"), () -> answer("hello"))).isEqualTo("hello");
+    }
+
+    @Test
+    void concurrentIdenticalPromptsShareOneGeneration() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = generateAsync(() -> {
+            leaderStarted.countDown();
+            await(release);
+            return answer("shared");
+        });
+        leaderStarted.await(1, TimeUnit.SECONDS);
+        CompletableFuture<String> follower = generateAsync(() -> answer("own"));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertThat(leader.get(1, TimeUnit.SECONDS)).isEqualTo("shared");
+        assertThat(follower.get(1, TimeUnit.SECONDS)).isEqualTo("shared");
+        assertThat(generations).hasValue(1);
+    }
+
+    @Test
+    void followerTakesOverWhenTheLeaderIsCancelled() throws Exception {
+        CountDownLatch cancel = new CountDownLatch(1);
+        CompletableFuture<String> leader = generateAsync(() -> {
+            generations.incrementAndGet();
+            leaderStarted.countDown();
+            await(cancel);
+            throw new CancellationException("client went away");
+        });
+        leaderStarted.await(1, TimeUnit.SECONDS);
+        CompletableFuture<String> follower = generateAsync(() -> answer("taken over"));
+        Thread.sleep(50);
+        cancel.countDown();
+
+        assertThat(follower.get(1, TimeUnit.SECONDS)).isEqualTo("taken over");
+        assertThatThrownBy(() -> leader.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(CancellationException.class);
+        assertThat(generations).hasValue(2);
+    }
+
+    @Test
+    void followerSharesTheLeadersFailure() throws Exception {
+        CountDownLatch fail = new CountDownLatch(1);
+        generateAsync(() -> {
+            generations.incrementAndGet();
+            leaderStarted.countDown();
+            await(fail);
+            throw new IOException("ollama down");
+        });
+        leaderStarted.await(1, TimeUnit.SECONDS);
+        CompletableFuture<String> follower = generateAsync(() -> answer("own"));
+        Thread.sleep(50);
+        fail.countDown();
+
+        assertThatThrownBy(() -> follower.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseInstanceOf(IOException.class);
+        assertThat(generations).hasValue(1);
+    }
+
+    @Test
+    void followerGivesUpAtItsDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = generateAsync(() -> {
+            leaderStarted.countDown();
+            await(release);
+            return answer("slow");
+        });
+        leaderStarted.await(1, TimeUnit.SECONDS);
+
+        Deadline.set(Instant.now().plusMillis(50));
+        try {
+            assertThatThrownBy(() -> cache.getOrGenerate(prompt("hi"), () -> answer("own")))
+                    .isInstanceOf(BackendUnavailableException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(leader.get(1, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    private CompletableFuture<String> generateAsync(Callable<String> generator) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return cache.getOrGenerate(prompt("hi"), generator);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private String answer(String text) {
+        generations.incrementAndGet();
+        return text;
+    }
+
+    private static Prompt prompt(String text) {
+        return new Prompt(List.of(new SystemMessage("system"), new UserMessage(text)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package dev.uday.alderaan.service;
+
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import dev.uday.alderaan.util.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TtsAudioCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() {
+        Deadline.clear();
+    }
+
+    @Test
+    void diskHitIsPromotedToTheHeap() throws Exception {
+        String key = cache(1 << 20).key("hello", "speaker", 22050);
+        cache(1 << 20).getOrSynthesize(key, () -> new byte[]{1, 2, 3});
+
+        // A fresh instance has an empty heap, as after a restart
+        TtsAudioCache restarted = cache(1 << 20);
+        assertThat(bytes(restarted.getOrSynthesize(key, TtsAudioCacheTest::unexpected))).containsExactly(1, 2, 3);
+
+        deleteClips();
+        assertThat(bytes(restarted.getOrSynthesize(key, TtsAudioCacheTest::unexpected))).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void largeDiskHitIsReturnedAsItsFile() throws Exception {
+        // Promotion stops at an eighth of the 1 MB heap tier
+        byte[] audio = new byte[200_000];
+        String key = cache(1 << 22).key("long reply", "speaker", 22050);
+        cache(1 << 22).getOrSynthesize(key, () -> audio);
+
+        TtsAudioCache.Clip clip = cache(1 << 22).getOrSynthesize(key, TtsAudioCacheTest::unexpected);
+
+        assertThat(clip.audio()).isNull();
+        assertThat(clip.file()).isEqualTo(clipOnDisk(key));
+        assertThat(clip.length()).isEqualTo(audio.length);
+    }
+
+    @Test
+    void trimmingEvictsTheLeastRecentlyUsedClip() throws Exception {
+        TtsAudioCache writer = cache(1000);
+        String first = writer.key("first", "speaker", 22050);
+        String second = writer.key("second", "speaker", 22050);
+        writer.getOrSynthesize(first, () -> new byte[400]);
+        writer.getOrSynthesize(second, () -> new byte[400]);
+        age(first, 200);
+        age(second, 100);
+
+        // Reading the older clip from disk makes it the most recently used one
+        TtsAudioCache reader = cache(1000);
+        reader.getOrSynthesize(first, TtsAudioCacheTest::unexpected);
+        reader.getOrSynthesize(reader.key("third", "speaker", 22050), () -> new byte[400]);
+
+        assertThat(clipOnDisk(first)).exists();
+        assertThat(clipOnDisk(second)).doesNotExist();
+    }
+
+    @Test
+    void followerTakesOverWhenTheLeaderIsCancelled() throws Exception {
+        TtsAudioCache cache = cache(1 << 20);
+        String key = cache.key("hello", "speaker", 22050);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch cancelLeader = new CountDownLatch(1);
+        AtomicInteger syntheses = new AtomicInteger();
+
+        CompletableFuture<TtsAudioCache.Clip> leader = CompletableFuture.supplyAsync(() -> cache.getOrSynthesize(key, () -> {
+            syntheses.incrementAndGet();
+            leaderStarted.countDown();
+            await(cancelLeader);
+            throw new CancellationException("client went away");
+        }));
+        leaderStarted.await(1, TimeUnit.SECONDS);
+        CompletableFuture<TtsAudioCache.Clip> follower = CompletableFuture.supplyAsync(() -> cache.getOrSynthesize(key, () -> {
+            syntheses.incrementAndGet();
+            return new byte[]{7};
+        }));
+        Thread.sleep(50);
+        cancelLeader.countDown();
+
+        assertThat(bytes(follower.get(1, TimeUnit.SECONDS))).containsExactly(7);
+        assertThat(leader).failsWithin(1, TimeUnit.SECONDS);
+        assertThat(syntheses).hasValue(2);
+    }
+
+    @Test
+    void followerGivesUpAtItsDeadline() throws Exception {
+        TtsAudioCache cache = cache(1 << 20);
+        String key = cache.key("hello", "speaker", 22050);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<TtsAudioCache.Clip> leader = CompletableFuture.supplyAsync(() -> cache.getOrSynthesize(key, () -> {
+            leaderStarted.countDown();
+            await(release);
+            return new byte[]{1};
+        }));
+        leaderStarted.await(1, TimeUnit.SECONDS);
+
+        Deadline.set(Instant.now().plusMillis(50));
+        try {
+            assertThatThrownBy(() -> cache.getOrSynthesize(key, TtsAudioCacheTest::unexpected))
+                    .isInstanceOf(BackendUnavailableException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(bytes(leader.get(1, TimeUnit.SECONDS))).containsExactly(1);
+    }
+
+    private TtsAudioCache cache(long maxDiskBytes) throws Exception {
+        return new TtsAudioCache(new SimpleMeterRegistry(), 1 << 20, dir.toString(), maxDiskBytes);
+    }
+
+    private Path clipOnDisk(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key + ".wav");
+    }
+
+    private void age(String key, long seconds) throws Exception {
+        Files.setLastModifiedTime(clipOnDisk(key), FileTime.from(Instant.now().minusSeconds(seconds)));
+    }
+
+    private void deleteClips() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.filter(Files::isRegularFile).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static byte[] bytes(TtsAudioCache.Clip clip) throws Exception {
+        return clip.bytes();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] unexpected() {
+        throw new AssertionError("Clip should have been cached");
+    }
+}
@@ -0,0 +1,118 @@
+package dev.uday.alderaan.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AudioCodecsTest {
+
+    private static final int[] IMA_STEPS = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45, 50, 55, 60, 66, 73, 80, 88, 97,
+            107, 118, 130, 143, 157, 173, 190, 209, 230, 253, 279, 307, 337, 371, 408, 449, 494, 544, 598, 658, 724,
+            796, 876, 963, 1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066, 2272, 2499, 2749, 3024, 3327, 3660, 4026,
+            4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487, 12635, 13899, 15289, 16818, 18500,
+            20350, 22385, 24623, 27086, 29794, 32767};
+    private static final int[] IMA_INDEX_ADJUST = {-1, -1, -1, -1, 2, 4, 6, 8};
+
+    @Test
+    void muLawMatchesTheG711Codewords() {
+        byte[] encoded = AudioCodecs.muLaw(new short[]{0, Short.MAX_VALUE, Short.MIN_VALUE, -1});
+
+        assertThat(encoded).containsExactly((byte) 0xFF, (byte) 0x80, (byte) 0x00, (byte) 0x7F);
+    }
+
+    @Test
+    void muLawRoundTripStaysWithinItsQuantizationStep() {
+        short[] samples = speechLike(8000);
+
+        byte[] encoded = AudioCodecs.muLaw(samples);
+
+        for (int i = 0; i < samples.length; i++) {
+            int error = Math.abs(decodeMuLaw(encoded[i]) - samples[i]);
+            // Segments double in width; the error is at most half a step of the sample's segment
+            assertThat(error).isLessThanOrEqualTo(Math.max(8, Math.abs(samples[i]) / 16));
+        }
+    }
+
+    @Test
+    void imaAdpcmBlocksStartFromAnExactSample() {
+        short[] samples = speechLike(2000);
+        int blockAlign = 256;
+        int samplesPerBlock = AudioCodecs.imaSamplesPerBlock(blockAlign);
+
+        byte[] encoded = AudioCodecs.imaAdpcm(samples, blockAlign);
+
+        int blocks = (samples.length + samplesPerBlock - 1) / samplesPerBlock;
+        assertThat(encoded).hasSize(blocks * blockAlign);
+        for (int block = 0; block < blocks; block++) {
+            int header = block * blockAlign;
+            short first = (short) ((encoded[header] & 0xFF) | (encoded[header + 1] << 8));
+            assertThat(first).isEqualTo(samples[block * samplesPerBlock]);
+            assertThat(encoded[header + 3]).isZero();
+        }
+    }
+
+    @Test
+    void imaAdpcmRoundTripKeepsSpeechIntelligible() {
+        short[] samples = speechLike(16000);
+        int blockAlign = 256;
+
+        short[] decoded = decodeImaAdpcm(AudioCodecs.imaAdpcm(samples, blockAlign), blockAlign);
+
+        double signal = 0;
+        double noise = 0;
+        for (int i = 0; i < samples.length; i++) {
+            signal += (double) samples[i] * samples[i];
+            noise += (double) (decoded[i] - samples[i]) * (decoded[i] - samples[i]);
+        }
+        assertThat(10 * Math.log10(signal / noise)).isGreaterThan(20);
+    }
+
+    private static short[] speechLike(int length) {
+        short[] samples = new short[length];
+        for (int n = 0; n < length; n++) {
+            double t = n / 16000.0;
+            samples[n] = (short) (8000 * Math.sin(2 * Math.PI * 220 * t) + 4000 * Math.sin(2 * Math.PI * 1870 * t));
+        }
+        return samples;
+    }
+
+    private static int decodeMuLaw(byte codeword) {
+        int value = ~codeword & 0xFF;
+        int exponent = (value >> 4) & 0x07;
+        int magnitude = (((value & 0x0F) << 3) + 0x84) << exponent;
+        return (value & 0x80) != 0 ? 0x84 - magnitude : magnitude - 0x84;
+    }
+
+    private static short[] decodeImaAdpcm(byte[] encoded, int blockAlign) {
+        int samplesPerBlock = AudioCodecs.imaSamplesPerBlock(blockAlign);
+        short[] decoded = new short[encoded.length / blockAlign * samplesPerBlock];
+        for (int block = 0; block < encoded.length / blockAlign; block++) {
+            int in = block * blockAlign;
+            int out = block * samplesPerBlock;
+            int predictor = (short) ((encoded[in] & 0xFF) | (encoded[in + 1] << 8));
+            int index = encoded[in + 2];
+            decoded[out] = (short) predictor;
+            for (int i = 1; i < samplesPerBlock; i++) {
+                int packed = encoded[in + 4 + (i - 1) / 2] & 0xFF;
+                int nibble = (i & 1) == 1 ? packed & 0x0F : packed >> 4;
+                int step = IMA_STEPS[index];
+                int delta = step >> 3;
+                if ((nibble & 4) != 0) {
+                    delta += step;
+                }
+                if ((nibble & 2) != 0) {
+                    delta += step >> 1;
+                }
+                if ((nibble & 1) != 0) {
+                    delta += step >> 2;
+                }
+                predictor += (nibble & 8) != 0 ? -delta : delta;
+                predictor = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, predictor));
+                index = Math.max(0, Math.min(IMA_STEPS.length - 1, index + IMA_INDEX_ADJUST[nibble & 7]));
+                decoded[out + i] = (short) predictor;
+            }
+        }
+        return decoded;
+    }
+}
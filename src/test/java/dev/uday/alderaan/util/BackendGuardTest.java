@@ -0,0 +1,122 @@
+package dev.uday.alderaan.util;
+
+import dev.uday.alderaan.exception.BackendUnavailableException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BackendGuardTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(50);
+
+    private final BackendGuard guard = new BackendGuard("test", 2, 0, Duration.ofSeconds(1), 3, OPEN_DURATION);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        fail(3);
+
+        assertThatThrownBy(() -> guard.call(() -> "ok"))
+                .isInstanceOf(BackendUnavailableException.class)
+                .hasMessage("test is unavailable");
+    }
+
+    @Test
+    void successResetsTheFailureCount() throws Exception {
+        fail(2);
+        guard.call(() -> "ok");
+        fail(2);
+
+        assertThat(guard.call(() -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void halfOpenLetsOneProbeThroughAndClosesOnSuccess() throws Exception {
+        fail(3);
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+
+        String result = guard.call(() -> {
+            // A second call while the probe is running is shed
+            assertThatThrownBy(() -> guard.call(() -> "nested"))
+                    .isInstanceOf(BackendUnavailableException.class)
+                    .hasMessage("test is recovering");
+            return "probe";
+        });
+
+        assertThat(result).isEqualTo("probe");
+        assertThat(guard.call(() -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() throws Exception {
+        fail(3);
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+        fail(1);
+
+        assertThatThrownBy(() -> guard.call(() -> "ok"))
+                .isInstanceOf(BackendUnavailableException.class)
+                .hasMessage("test is unavailable");
+    }
+
+    @Test
+    void cancelledProbeLetsTheNextCallProbe() throws Exception {
+        fail(3);
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+
+        assertThatThrownBy(() -> guard.call(() -> {
+            throw new InterruptedException();
+        })).isInstanceOf(CancellationException.class);
+        assertThat(Thread.interrupted()).isTrue();
+
+        assertThat(guard.call(() -> "probe")).isEqualTo("probe");
+    }
+
+    @Test
+    void cancelledStreamDoesNotResetFailures() {
+        fail(2);
+        guard.stream(Flux.never()).subscribe().dispose();
+        fail(1);
+
+        assertThatThrownBy(() -> guard.call(() -> "ok"))
+                .isInstanceOf(BackendUnavailableException.class)
+                .hasMessage("test is unavailable");
+    }
+
+    @Test
+    void cancelledStreamProbeKeepsTheCircuitOpen() throws Exception {
+        fail(3);
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+
+        Disposable probe = guard.stream(Flux.never()).subscribe();
+        probe.dispose();
+
+        // Still open rather than closed: the next trial fails and reopens it at once
+        fail(1);
+        assertThatThrownBy(() -> guard.call(() -> "ok"))
+                .isInstanceOf(BackendUnavailableException.class)
+                .hasMessage("test is unavailable");
+    }
+
+    @Test
+    void completedStreamClosesTheCircuit() throws Exception {
+        fail(3);
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+
+        assertThat(guard.stream(Flux.just("a", "b")).collectList().block()).containsExactly("a", "b");
+        assertThat(guard.call(() -> "ok")).isEqualTo("ok");
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw new IOException("backend down");
+            })).isInstanceOf(IOException.class);
+        }
+    }
+}
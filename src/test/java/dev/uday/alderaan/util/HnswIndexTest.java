@@ -0,0 +1,108 @@
+package dev.uday.alderaan.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int COUNT = 2000;
+
+    private final SplittableRandom random = new SplittableRandom(7);
+    private final float[][] vectors = new float[COUNT][];
+    private HnswIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HnswIndex(16, 100);
+        for (int id = 0; id < COUNT; id++) {
+            vectors[id] = randomVector();
+            index.add(id, vectors[id]);
+        }
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+        assertThat(new HnswIndex(16, 100).search(randomVector(), 1, 50)).isEmpty();
+    }
+
+    @Test
+    void findsAStoredVectorWithFullSimilarity() {
+        List<HnswIndex.Match> matches = index.search(scaled(vectors[42], 3), 1, 50);
+
+        assertThat(matches).hasSize(1);
+        assertThat(matches.get(0).id()).isEqualTo(42);
+        assertThat(matches.get(0).similarity()).isCloseTo(1f, within(1e-4f));
+    }
+
+    @Test
+    void noisyQueriesFindTheirSource() {
+        assertThat(recall(0)).isGreaterThanOrEqualTo(0.98);
+    }
+
+    @Test
+    void removedVectorsAreNeverReturnedAndTheRestAreStillFound() {
+        for (int id = 0; id < COUNT; id += 2) {
+            index.remove(id);
+        }
+
+        assertThat(index.size()).isEqualTo(COUNT / 2);
+        assertThat(index.tombstones()).isEqualTo(COUNT / 2);
+        for (int id = 0; id < COUNT; id += 2) {
+            assertThat(index.search(vectors[id], 5, 50)).extracting(HnswIndex.Match::id).doesNotContain((long) id);
+        }
+        assertThat(recall(1)).isGreaterThanOrEqualTo(0.98);
+    }
+
+    @Test
+    void compactDropsTombstonesAndKeepsRecall() {
+        for (int id = 0; id < COUNT; id += 2) {
+            index.remove(id);
+        }
+
+        index.compact();
+
+        assertThat(index.size()).isEqualTo(COUNT / 2);
+        assertThat(index.tombstones()).isZero();
+        assertThat(recall(1)).isGreaterThanOrEqualTo(0.98);
+    }
+
+    // Share of the live vectors, starting at the given id and stepping by two, found as top-1 from a perturbed query
+    private double recall(int firstId) {
+        int found = 0;
+        int queries = 0;
+        for (int id = firstId; id < COUNT; id += 2, queries++) {
+            float[] query = vectors[id].clone();
+            for (int d = 0; d < DIMENSIONS; d++) {
+                query[d] += (float) (random.nextGaussian() * 0.05);
+            }
+            List<HnswIndex.Match> matches = index.search(query, 1, 50);
+            if (!matches.isEmpty() && matches.get(0).id() == id) {
+                found++;
+            }
+        }
+        return (double) found / queries;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static float[] scaled(float[] vector, float factor) {
+        float[] scaled = new float[vector.length];
+        for (int d = 0; d < vector.length; d++) {
+            scaled[d] = vector[d] * factor;
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,126 @@
+package dev.uday.alderaan.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MicroBatcherTest {
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final List<Instant> deadlines = new CopyOnWriteArrayList<>();
+    private MicroBatcher<String, String> batcher;
+
+    @AfterEach
+    void tearDown() {
+        Deadline.clear();
+        batcher.shutdown();
+    }
+
+    @Test
+    void fullBatchIsDispatchedWithoutWaitingForTheWindow() throws Exception {
+        batcher = new MicroBatcher<>("test", Duration.ofHours(1), 3, 1, 10, this::upperCase);
+
+        CompletableFuture<String> a = batcher.submit("a");
+        CompletableFuture<String> b = batcher.submit("b");
+        CompletableFuture<String> c = batcher.submit("c");
+
+        assertThat(c.get(1, TimeUnit.SECONDS)).isEqualTo("C");
+        assertThat(a.get(1, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(b.get(1, TimeUnit.SECONDS)).isEqualTo("B");
+        assertThat(batches).containsExactly(List.of("a", "b", "c"));
+    }
+
+    @Test
+    void partialBatchIsDispatchedWhenTheWindowCloses() throws Exception {
+        batcher = new MicroBatcher<>("test", Duration.ofMillis(20), 8, 1, 10, this::upperCase);
+
+        CompletableFuture<String> a = batcher.submit("a");
+        CompletableFuture<String> b = batcher.submit("b");
+
+        assertThat(a.get(1, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(b.get(1, TimeUnit.SECONDS)).isEqualTo("B");
+        assertThat(batches).containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void rejectsSubmissionsBeyondTheQueueLimitUntilOneCompletes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new MicroBatcher<>("test", Duration.ofMillis(1), 1, 1, 2, blockingUntil(release));
+
+        CompletableFuture<String> a = batcher.submit("a");
+        batcher.submit("b");
+        assertThatThrownBy(() -> batcher.submit("c")).isInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        assertThat(a.get(1, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(batcher.submit("d").get(1, TimeUnit.SECONDS)).isEqualTo("D");
+    }
+
+    @Test
+    void cancelledSubmissionIsLeftOutOfItsBatch() throws Exception {
+        batcher = new MicroBatcher<>("test", Duration.ofMillis(50), 8, 1, 10, this::upperCase);
+
+        CompletableFuture<String> a = batcher.submit("a");
+        batcher.submit("b").cancel(true);
+
+        assertThat(a.get(1, TimeUnit.SECONDS)).isEqualTo("A");
+        assertThat(batches).containsExactly(List.of("a"));
+    }
+
+    @Test
+    void batchRunsUnderTheEarliestCallerDeadline() throws Exception {
+        batcher = new MicroBatcher<>("test", Duration.ofMillis(20), 8, 1, 10, this::upperCase);
+        Instant soon = Instant.now().plusSeconds(5);
+        Instant later = soon.plusSeconds(5);
+
+        Deadline.set(later);
+        CompletableFuture<String> a = batcher.submit("a");
+        Deadline.set(soon);
+        CompletableFuture<String> b = batcher.submit("b");
+        Deadline.clear();
+        CompletableFuture<String> c = batcher.submit("c");
+
+        CompletableFuture.allOf(a, b, c).get(1, TimeUnit.SECONDS);
+        assertThat(deadlines).containsExactly(soon);
+    }
+
+    @Test
+    void failedBatchFailsEveryCaller() {
+        batcher = new MicroBatcher<>("test", Duration.ofMillis(1), 8, 1, 10, items -> {
+            throw new IllegalStateException("sidecar down");
+        });
+
+        CompletableFuture<String> a = batcher.submit("a");
+
+        assertThatThrownBy(() -> a.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private List<String> upperCase(List<String> items) {
+        batches.add(items);
+        deadlines.add(Deadline.current());
+        return items.stream().map(String::toUpperCase).toList();
+    }
+
+    private Function<List<String>, List<String>> blockingUntil(CountDownLatch release) {
+        return items -> {
+            try {
+                release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return upperCase(items);
+        };
+    }
+}
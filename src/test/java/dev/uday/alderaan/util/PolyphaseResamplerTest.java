@@ -0,0 +1,87 @@
+package dev.uday.alderaan.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PolyphaseResamplerTest {
+
+    @ParameterizedTest
+    @CsvSource({"48000, 16000", "44100, 16000", "22050, 16000", "8000, 16000", "11025, 22050"})
+    void emitsExactlyTheScaledNumberOfFrames(int inputRate, int outputRate) {
+        float[] input = tone(440, inputRate, inputRate / 3 + 7);
+
+        float[] output = resample(new PolyphaseResampler(inputRate, outputRate), input, input.length);
+
+        long expected = ((long) input.length * outputRate + inputRate - 1) / inputRate;
+        assertThat(output).hasSize((int) expected);
+    }
+
+    @Test
+    void passbandToneKeepsItsAmplitudeAndPhase() {
+        float[] input = tone(1000, 44100, 44100);
+
+        float[] output = resample(new PolyphaseResampler(44100, 16000), input, input.length);
+
+        // Away from the edges, where the filter sees the silence padding
+        float[] expected = tone(1000, 16000, output.length);
+        for (int n = 1000; n < output.length - 1000; n++) {
+            assertThat(output[n]).isCloseTo(expected[n], within(0.01f));
+        }
+    }
+
+    @Test
+    void toneAboveTheNewNyquistRateIsRemoved() {
+        float[] input = tone(12000, 48000, 48000);
+
+        float[] output = resample(new PolyphaseResampler(48000, 16000), input, input.length);
+
+        assertThat(peak(Arrays.copyOfRange(output, 1000, output.length - 1000))).isLessThan(0.01f);
+    }
+
+    @Test
+    void chunkedInputMatchesOneShotInput() {
+        float[] input = tone(700, 48000, 10000);
+
+        float[] oneShot = resample(new PolyphaseResampler(48000, 16000), input, input.length);
+        float[] chunked = resample(new PolyphaseResampler(48000, 16000), input, 333);
+
+        assertThat(chunked).containsExactly(oneShot);
+    }
+
+    private static float[] resample(PolyphaseResampler resampler, float[] input, int chunk) {
+        float[] output = new float[0];
+        for (int offset = 0; offset < input.length; offset += chunk) {
+            float[] part = Arrays.copyOfRange(input, offset, Math.min(input.length, offset + chunk));
+            output = concat(output, resampler.process(part, part.length));
+        }
+        return concat(output, resampler.flush());
+    }
+
+    private static float[] concat(float[] a, float[] b) {
+        float[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    private static float[] tone(double frequency, int sampleRate, int length) {
+        float[] samples = new float[length];
+        for (int n = 0; n < length; n++) {
+            samples[n] = (float) (0.5 * Math.sin(2 * Math.PI * frequency * n / sampleRate));
+        }
+        return samples;
+    }
+
+    private static float peak(float[] samples) {
+        float peak = 0;
+        for (float sample : samples) {
+            peak = Math.max(peak, Math.abs(sample));
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,74 @@
+package dev.uday.alderaan.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentenceChunkerTest {
+
+    @Test
+    void splitsAtTerminatorsFollowedByWhitespace() {
+        SentenceChunker chunker = new SentenceChunker(0);
+
+        assertThat(feed(chunker, "Hello there. How are you? I am fine! Bye"))
+                .containsExactly("Hello there.", "How are you?", "I am fine!");
+        assertThat(chunker.flush()).isEqualTo("Bye");
+    }
+
+    @Test
+    void sentenceSplitAcrossTokensIsEmittedOnceTheNextCharacterArrives() {
+        SentenceChunker chunker = new SentenceChunker(0);
+
+        assertThat(chunker.append("It is done")).isEmpty();
+        // The full stop could still be a decimal point
+        assertThat(chunker.append(".")).isEmpty();
+        assertThat(chunker.append(" Next")).containsExactly("It is done.");
+    }
+
+    @Test
+    void decimalPointsAndTrailingTerminatorsAreNotBoundaries() {
+        SentenceChunker chunker = new SentenceChunker(0);
+
+        assertThat(feed(chunker, "Pi is 3.14 roughly.")).isEmpty();
+        assertThat(chunker.flush()).isEqualTo("Pi is 3.14 roughly.");
+    }
+
+    @Test
+    void newlineEndsASentenceWithoutPunctuation() {
+        SentenceChunker chunker = new SentenceChunker(0);
+
+        assertThat(feed(chunker, "- first item\n- second item\n")).containsExactly("- first item");
+        assertThat(chunker.flush()).isEqualTo("- second item");
+    }
+
+    @Test
+    void shortSentencesAreMergedUntilTheMinimumLength() {
+        SentenceChunker chunker = new SentenceChunker(20);
+
+        assertThat(feed(chunker, "Yes. Of course. That is entirely right. Ok"))
+                .containsExactly("Yes. Of course. That is entirely right.");
+        assertThat(chunker.flush()).isEqualTo("Ok");
+    }
+
+    @Test
+    void flushResetsTheChunker() {
+        SentenceChunker chunker = new SentenceChunker(0);
+        feed(chunker, "Left over");
+
+        assertThat(chunker.flush()).isEqualTo("Left over");
+        assertThat(chunker.flush()).isEmpty();
+        assertThat(feed(chunker, "Fresh start. ")).containsExactly("Fresh start.");
+    }
+
+    // One character per token, the worst case for boundaries that straddle tokens
+    private static List<String> feed(SentenceChunker chunker, String text) {
+        List<String> sentences = new ArrayList<>();
+        for (char c : text.toCharArray()) {
+            sentences.addAll(chunker.append(String.valueOf(c)));
+        }
+        return sentences;
+    }
+}
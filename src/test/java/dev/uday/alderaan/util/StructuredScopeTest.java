@@ -0,0 +1,142 @@
+package dev.uday.alderaan.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StructuredScopeTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        Deadline.clear();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void joinMakesEveryResultAvailable() throws Exception {
+        try (StructuredScope scope = new StructuredScope(executor)) {
+            Future<String> a = scope.fork(() -> "a");
+            Future<Integer> b = scope.fork(() -> 2);
+            scope.join();
+
+            assertThat(a.resultNow()).isEqualTo("a");
+            assertThat(b.resultNow()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void firstFailureIsRethrownAndCancelsTheOtherSubtasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (StructuredScope scope = new StructuredScope(executor)) {
+            Future<String> slow = scope.fork(() -> blockUntilInterrupted(started, interrupted));
+            started.await(1, TimeUnit.SECONDS);
+            scope.fork(() -> {
+                throw new IOException("backend down");
+            });
+
+            assertThatThrownBy(scope::join).isInstanceOf(IOException.class).hasMessage("backend down");
+            assertThat(slow.isCancelled()).isTrue();
+        }
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void interruptedOwnerCancelsEverySubtask() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicReference<Throwable> joinError = new AtomicReference<>();
+
+        Thread owner = new Thread(() -> {
+            try (StructuredScope scope = new StructuredScope(executor)) {
+                scope.fork(() -> blockUntilInterrupted(started, interrupted));
+                scope.join();
+            } catch (Exception e) {
+                joinError.set(e);
+            }
+        });
+        owner.start();
+        started.await(1, TimeUnit.SECONDS);
+        owner.interrupt();
+        owner.join(1000);
+
+        assertThat(joinError.get()).isInstanceOf(InterruptedException.class);
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void closingWithoutJoiningCancelsTheSubtasks() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Future<String> slow;
+
+        try (StructuredScope scope = new StructuredScope(executor)) {
+            slow = scope.fork(() -> blockUntilInterrupted(started, interrupted));
+            started.await(1, TimeUnit.SECONDS);
+        }
+
+        assertThat(slow.isCancelled()).isTrue();
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void subtasksRunUnderTheOwnersDeadline() throws Exception {
+        Instant deadline = Instant.now().plusSeconds(30);
+        Deadline.set(deadline);
+
+        try (StructuredScope scope = new StructuredScope(executor)) {
+            Future<Instant> seen = scope.fork(Deadline::current);
+            scope.join();
+
+            assertThat(seen.resultNow()).isEqualTo(deadline);
+        }
+    }
+
+    @Test
+    void saturatedCallerRunsPoolRunsSubtasksInline() throws Exception {
+        // The platform-thread turn executor: one thread, no queue, overflow runs on the submitting thread
+        ExecutorService pool = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            Future<String> turn = pool.submit(() -> {
+                try (StructuredScope scope = new StructuredScope(pool)) {
+                    Future<String> step = scope.fork(() -> Thread.currentThread().getName());
+                    scope.join();
+                    return step.resultNow();
+                }
+            });
+
+            // The only worker is running the turn, so its step cannot wait for a free thread
+            assertThat(turn.get(1, TimeUnit.SECONDS)).isNotEqualTo(Thread.currentThread().getName());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String blockUntilInterrupted(CountDownLatch started, CountDownLatch interrupted) {
+        started.countDown();
+        try {
+            Thread.sleep(10_000);
+            return "finished";
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            return "interrupted";
+        }
+    }
+}